@@ -11,9 +11,10 @@ import java.lang.annotation.Target;
  *
  * <p>
  * <b>Annotation Processing:</b><br>
- * This annotation is retained only in source code.
- * That means it is not visible if source code is not directly participating in annotation processing.
- * E.g. if it is in a dependency jar in a project with multi-module build.
+ * This annotation is retained in class files but not at runtime,
+ * so that incremental builds (e.g. Gradle) can reprocess annotated types from compiled classes of the same module.
+ * Annotated types in a dependency jar are not processed, only types in source code participating in annotation processing are.
+ * E.g. in a project with multi-module build, the annotation processing should be executed on every module.
  * <br>
  * <br>
  * When used together with <b>Lombok</b>, the processing order matters.
@@ -27,6 +28,10 @@ import java.lang.annotation.Target;
  * <b>Configurations:</b><br>
  * Properties on class level (via this annotation) will take precedence over global properties.
  * Properties that only apply to global level will not be present on class level.
+ * <br>
+ * This annotation can also be put on a package in {@code package-info.java} to provide defaults of types in the package,
+ * e.g. {@link #includes()}, which apply to types in the package unless specified by annotations on the types.
+ * A package annotation does not mark types in the package for generation, and its {@link #name()} is ignored.
  * </p>
  *
  * <p>
@@ -52,8 +57,8 @@ import java.lang.annotation.Target;
  * @author Cause Chung
  * @implNote generics type bounds are not supported yet, Map is not supported yet.
  */
-@Retention(RetentionPolicy.SOURCE)
-@Target({java.lang.annotation.ElementType.TYPE})
+@Retention(RetentionPolicy.CLASS)
+@Target({java.lang.annotation.ElementType.TYPE, java.lang.annotation.ElementType.PACKAGE})
 @Documented
 public @interface SharedType {
     /**
@@ -92,7 +97,7 @@ public @interface SharedType {
      * This annotation will be ignored if {@link #includes()} does not include {@link ComponentType#ACCESSORS}.
      */
     @Target({ElementType.METHOD})
-    @Retention(RetentionPolicy.SOURCE)
+    @Retention(RetentionPolicy.CLASS)
     @interface Accessor {
     }
 
@@ -105,7 +110,7 @@ public @interface SharedType {
      * </p>
      */
     @Target({ElementType.METHOD, ElementType.FIELD, ElementType.TYPE})
-    @Retention(RetentionPolicy.SOURCE)
+    @Retention(RetentionPolicy.CLASS)
     @interface Ignore {
     }
 
@@ -148,6 +153,10 @@ public @interface SharedType {
      * }
      * }
      * </pre>
+     * <p>
+     * Enums from dependency jars are read from their class files, literal values are then the constants passed to the constructor in bytecode.
+     * A field is matched to the constructor parameter directly assigned to it, as parameter names are not kept in class files by default.
+     * </p>
      */
     @Target({ElementType.FIELD, ElementType.PARAMETER})
     @Retention(RetentionPolicy.CLASS)
@@ -0,0 +1,140 @@
+package online.sharedtype.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs {@link online.sharedtype.processor.AnnotationProcessorImpl} in-process through {@link JavaCompiler} with "-proc:only"
+ * over synthetic source trees, see {@link SourceTreeGenerator}.
+ * <br>
+ * The benchmark score is the whole compilation, including javac's own parsing and attribution.
+ * Per-stage time and allocation of the processor are printed at the end of each trial, averaged over measurement iterations.
+ *
+ * @author Cause Chung
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class AnnotationProcessingBenchmark {
+    private static final String PROPS = "sharedtype.targets=TYPESCRIPT\n";
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int typeCount;
+
+    private Path workDir;
+    private Path classOutputDir;
+    private Path sourceOutputDir;
+    private Path propsFile;
+    private List<Path> sources;
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    private StageTimingProcessor lastProcessor;
+    private final List<long[]> measuredStats = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void generateSources() throws IOException {
+        workDir = Files.createTempDirectory("sharedtype-benchmark");
+        classOutputDir = Files.createDirectories(workDir.resolve("classes"));
+        sourceOutputDir = Files.createDirectories(workDir.resolve("generated-sources"));
+        propsFile = Files.write(workDir.resolve("sharedtype.properties"), PROPS.getBytes(StandardCharsets.UTF_8));
+        sources = SourceTreeGenerator.generate(workDir.resolve("src"), typeCount);
+    }
+
+    @Benchmark
+    public StageTimingProcessor process() throws IOException {
+        StageTimingProcessor processor = new StageTimingProcessor();
+        DiagnosticListener<JavaFileObject> diagnosticListener = diagnostic -> {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                throw new IllegalStateException(diagnostic.toString());
+            }
+        };
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnosticListener, null, StandardCharsets.UTF_8)) {
+            fileManager.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, Collections.singletonList(classOutputDir));
+            fileManager.setLocationFromPaths(StandardLocation.SOURCE_OUTPUT, Collections.singletonList(sourceOutputDir));
+            List<String> options = List.of(
+                "-proc:only",
+                "-Asharedtype.propsFile=" + propsFile,
+                "-classpath", System.getProperty("java.class.path")
+            );
+            JavaCompiler.CompilationTask task = compiler.getTask(
+                null, fileManager, diagnosticListener, options, null, fileManager.getJavaFileObjectsFromPaths(sources));
+            task.setProcessors(Collections.singletonList(processor));
+            if (!task.call()) {
+                throw new IllegalStateException("Compilation failed.");
+            }
+        }
+        lastProcessor = processor;
+        return processor;
+    }
+
+    @TearDown(Level.Iteration)
+    public void collectStageStats(IterationParams iterationParams) {
+        if (iterationParams.getType() == IterationType.MEASUREMENT && lastProcessor != null) {
+            measuredStats.add(new long[]{
+                lastProcessor.parseStats().nanos(), lastProcessor.parseStats().bytes(),
+                lastProcessor.resolveStats().nanos(), lastProcessor.resolveStats().bytes(),
+                lastProcessor.writeStats().nanos(), lastProcessor.writeStats().bytes(),
+            });
+        }
+        lastProcessor = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void report() throws IOException {
+        if (!measuredStats.isEmpty()) {
+            long[] sum = new long[6];
+            for (long[] stats : measuredStats) {
+                for (int i = 0; i < sum.length; i++) {
+                    sum[i] += stats[i];
+                }
+            }
+            int n = measuredStats.size();
+            System.out.printf("%n[sharedtype] typeCount=%d, average of %d measurement iterations:%n", typeCount, n);
+            printStage("TypeDefParser.parse", sum[0] / n, sum[1] / n);
+            printStage("TypeResolver.resolve", sum[2] / n, sum[3] / n);
+            printStage("TypeWriter.write", sum[4] / n, sum[5] / n);
+            measuredStats.clear();
+        }
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static void printStage(String stage, long nanos, long bytes) {
+        System.out.printf("  %-22s %10.2f ms %12.2f MB allocated%n", stage, nanos / 1_000_000.0, bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,110 @@
+package online.sharedtype.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates a synthetic source tree of {@code @SharedType} annotated types.
+ * <br>
+ * Every 10th type is an enum with an explicit enum value, the rest are classes referencing the previous type,
+ * a per-package enum and a per-package generic type that is not annotated, so that the resolver has a dependency graph to walk.
+ *
+ * @author Cause Chung
+ */
+final class SourceTreeGenerator {
+    private static final int TYPES_PER_PACKAGE = 100;
+    private static final int ENUM_INTERVAL = 10;
+
+    private SourceTreeGenerator() {
+    }
+
+    static List<Path> generate(Path sourceDir, int typeCount) throws IOException {
+        List<Path> files = new ArrayList<>(typeCount + typeCount / TYPES_PER_PACKAGE + 1);
+        int packageCount = (typeCount + TYPES_PER_PACKAGE - 1) / TYPES_PER_PACKAGE;
+        for (int p = 0; p < packageCount; p++) {
+            files.add(write(sourceDir, packageName(p), commonTypeName(p), commonType(p)));
+        }
+        for (int i = 0; i < typeCount; i++) {
+            int p = i / TYPES_PER_PACKAGE;
+            String source = i % ENUM_INTERVAL == 0 ? enumType(p, i) : classType(p, i);
+            files.add(write(sourceDir, packageName(p), typeName(i), source));
+        }
+        return files;
+    }
+
+    private static String commonType(int p) {
+        return "package " + packageName(p) + ";\n"
+            + "\n"
+            + "public class " + commonTypeName(p) + "<T> {\n"
+            + "    private T value;\n"
+            + "    private java.util.List<T> values;\n"
+            + "    private int version;\n"
+            + "}\n";
+    }
+
+    private static String enumType(int p, int i) {
+        return "package " + packageName(p) + ";\n"
+            + "\n"
+            + "import online.sharedtype.SharedType;\n"
+            + "\n"
+            + "@SharedType\n"
+            + "public enum " + typeName(i) + " {\n"
+            + "    A(1), B(2), C(3), D(4);\n"
+            + "\n"
+            + "    @SharedType.EnumValue\n"
+            + "    private final int value;\n"
+            + "\n"
+            + "    " + typeName(i) + "(int value) {\n"
+            + "        this.value = value;\n"
+            + "    }\n"
+            + "}\n";
+    }
+
+    private static String classType(int p, int i) {
+        int enumIndex = p * TYPES_PER_PACKAGE;
+        return "package " + packageName(p) + ";\n"
+            + "\n"
+            + "import online.sharedtype.SharedType;\n"
+            + "import java.util.List;\n"
+            + "import java.util.Set;\n"
+            + "\n"
+            + "@SharedType\n"
+            + "public class " + typeName(i) + " {\n"
+            + "    private String name;\n"
+            + "    private int count;\n"
+            + "    private Long id;\n"
+            + "    private boolean active;\n"
+            + "    private List<String> tags;\n"
+            + "    private Set<Integer> codes;\n"
+            + "    private double[] weights;\n"
+            + "    private " + typeName(i - 1) + " previous;\n"
+            + "    private " + typeName(enumIndex) + " kind;\n"
+            + "    private " + commonTypeName(p) + "<" + typeName(i) + "> common;\n"
+            + "\n"
+            + "    public String getDisplayName() {\n"
+            + "        return name;\n"
+            + "    }\n"
+            + "}\n";
+    }
+
+    private static Path write(Path sourceDir, String packageName, String typeName, String source) throws IOException {
+        Path dir = sourceDir.resolve(packageName.replace('.', '/'));
+        Files.createDirectories(dir);
+        return Files.write(dir.resolve(typeName + ".java"), source.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    }
+
+    private static String packageName(int p) {
+        return "bench.p" + p;
+    }
+
+    private static String typeName(int i) {
+        return "Type" + i;
+    }
+
+    private static String commonTypeName(int p) {
+        return "Common" + p;
+    }
+}
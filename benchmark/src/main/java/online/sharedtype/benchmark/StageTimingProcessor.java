@@ -0,0 +1,194 @@
+package online.sharedtype.benchmark;
+
+import online.sharedtype.processor.AnnotationProcessorImpl;
+import online.sharedtype.processor.domain.TypeDef;
+import online.sharedtype.processor.parser.TypeDefParser;
+import online.sharedtype.processor.resolver.TypeResolver;
+import online.sharedtype.processor.writer.TypeWriter;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Wraps {@link AnnotationProcessorImpl} and measures time and allocation of each pipeline stage.
+ * <br>
+ * Parse measures all calls to {@link TypeDefParser#parse}, including dependency parsing triggered by the resolver.
+ * Resolve excludes the time spent in those nested parse calls, and in writing, which happens while types are resolved.
+ * <br>
+ * Stages may be called from worker threads if parallelism is enabled, so stats are accumulated with {@link LongAdder}s,
+ * and allocation is summed over all live threads, including pool threads that e.g. render Typescript chunks.
+ * In parallel configurations, allocation by other threads running concurrently is attributed to the measured call,
+ * so per-stage allocation is an approximation, while the total is exact.
+ *
+ * @author Cause Chung
+ */
+public final class StageTimingProcessor extends AbstractProcessor implements AnnotationProcessorImpl.StageInterceptor {
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final AnnotationProcessorImpl delegate = new AnnotationProcessorImpl(this);
+    private final StageStats parseStats = new StageStats();
+    private final StageStats resolveStats = new StageStats();
+    private final StageStats writeStats = new StageStats();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return delegate.getSupportedAnnotationTypes();
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return delegate.getSupportedOptions();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return delegate.getSupportedSourceVersion();
+    }
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        delegate.init(processingEnv);
+    }
+
+    @Override
+    public TypeDefParser parser(TypeDefParser parser) {
+        return new TimedParser(parser);
+    }
+
+    @Override
+    public TypeResolver resolver(TypeResolver resolver) {
+        return new TimedResolver(resolver);
+    }
+
+    @Override
+    public TypeWriter writer(TypeWriter writer) {
+        return new TimedWriter(writer);
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        return delegate.process(annotations, roundEnv);
+    }
+
+    public StageStats parseStats() {
+        return parseStats;
+    }
+
+    public StageStats resolveStats() {
+        return resolveStats;
+    }
+
+    public StageStats writeStats() {
+        return writeStats;
+    }
+
+    /** Pool threads of the processor are kept alive during processing, so their allocation is not lost before it is read. */
+    private static long allocatedBytes() {
+        long sum = 0;
+        for (long bytes : THREAD_MX_BEAN.getThreadAllocatedBytes(THREAD_MX_BEAN.getAllThreadIds())) {
+            if (bytes > 0) { // -1 if a thread has terminated
+                sum += bytes;
+            }
+        }
+        return sum;
+    }
+
+    /** Accumulated wall time and allocated bytes of a stage, thread-safe. */
+    public static final class StageStats {
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        public long nanos() {
+            return nanos.sum();
+        }
+
+        public long bytes() {
+            return bytes.sum();
+        }
+
+        private void add(long nanos, long bytes) {
+            this.nanos.add(nanos);
+            this.bytes.add(bytes);
+        }
+    }
+
+    private final class TimedParser implements TypeDefParser {
+        private final TypeDefParser parser;
+
+        TimedParser(TypeDefParser parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public TypeDef parse(TypeElement typeElement) {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            TypeDef typeDef = parser.parse(typeElement);
+            parseStats.add(System.nanoTime() - start, allocatedBytes() - bytes);
+            return typeDef;
+        }
+    }
+
+    private final class TimedResolver implements TypeResolver {
+        private final TypeResolver resolver;
+
+        TimedResolver(TypeResolver resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public void resolve(List<TypeDef> typeDefs, Consumer<TypeDef> consumer) {
+            long nestedNanos = parseStats.nanos() + writeStats.nanos();
+            long nestedBytes = parseStats.bytes() + writeStats.bytes();
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            resolver.resolve(typeDefs, consumer);
+            long nanos = System.nanoTime() - start;
+            bytes = allocatedBytes() - bytes;
+            // nested calls, possibly on pool threads, have completed when resolve() returns
+            resolveStats.add(nanos - (parseStats.nanos() + writeStats.nanos() - nestedNanos), bytes - (parseStats.bytes() + writeStats.bytes() - nestedBytes));
+        }
+    }
+
+    private final class TimedWriter implements TypeWriter {
+        private final TypeWriter writer;
+
+        TimedWriter(TypeWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            writer.begin();
+            writeStats.add(System.nanoTime() - start, allocatedBytes() - bytes);
+        }
+
+        @Override
+        public void accept(TypeDef typeDef) throws IOException {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            writer.accept(typeDef);
+            writeStats.add(System.nanoTime() - start, allocatedBytes() - bytes);
+        }
+
+        @Override
+        public void end() throws IOException {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            writer.end();
+            writeStats.add(System.nanoTime() - start, allocatedBytes() - bytes);
+        }
+    }
+}
@@ -22,7 +22,7 @@ export const dependencyClassA: DependencyClassA = {
 };
 dependencyClassC.a = dependencyClassA
 
-export const obj: Omit<JavaRecord<string, number>, "aVoid" | "genericMap"> = {
+export const obj: Omit<JavaRecord<string, number>, "aVoid"> = {
     boxedBoolean: false,
     boxedByte: 0,
     boxedChar: "",
@@ -40,6 +40,7 @@ export const obj: Omit<JavaRecord<string, number>, "aVoid" | "genericMap"> = {
     enumSize: 3,
     genericList: [],
     genericListSet: [],
+    genericMap: {},
     genericSet: [],
     intArray: [],
     object: undefined,
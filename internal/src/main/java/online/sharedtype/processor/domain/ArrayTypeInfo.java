@@ -18,6 +18,8 @@ import lombok.RequiredArgsConstructor;
 public final class ArrayTypeInfo implements TypeInfo {
     private static final long serialVersionUID = -6969192495547169811L;
     private final TypeInfo component;
+    @EqualsAndHashCode.Exclude
+    private final ResolutionCounter resolutionCounter = new ResolutionCounter();
 
     public TypeInfo component() {
         return component;
@@ -25,7 +27,15 @@ public final class ArrayTypeInfo implements TypeInfo {
 
     @Override
     public boolean resolved() {
-        return component.resolved();
+        return resolutionCounter().resolved();
+    }
+
+    ResolutionCounter resolutionCounter() {
+        if (!resolutionCounter.counted()) {
+            resolutionCounter.markCounted();
+            resolutionCounter.addDependency(component);
+        }
+        return resolutionCounter;
     }
 
     @Override
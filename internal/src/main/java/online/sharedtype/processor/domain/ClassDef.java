@@ -25,6 +25,7 @@ public final class ClassDef implements TypeDef {
     private final List<TypeVariableInfo> typeVariables = Collections.emptyList();
     @Builder.Default
     private final List<TypeInfo> supertypes = Collections.emptyList(); // direct supertypes
+    private final ResolutionCounter resolutionCounter = new ResolutionCounter();
 
     @Override
     public String qualifiedName() {
@@ -49,25 +50,17 @@ public final class ClassDef implements TypeDef {
         return supertypes;
     }
 
-    // TODO: optimize
     @Override
     public boolean resolved() {
-        for (FieldComponentInfo fieldComponentInfo : components) {
-            if (!fieldComponentInfo.resolved()) {
-                return false;
+        if (!resolutionCounter.counted()) {
+            resolutionCounter.markCounted();
+            for (FieldComponentInfo fieldComponentInfo : components) {
+                resolutionCounter.addDependency(fieldComponentInfo.type());
             }
+            resolutionCounter.addDependencies(typeVariables);
+            resolutionCounter.addDependencies(supertypes);
         }
-        for (TypeVariableInfo typeVariableInfo : typeVariables) {
-            if (!typeVariableInfo.resolved()) {
-                return false;
-            }
-        }
-        for (TypeInfo supertype : supertypes) {
-            if (!supertype.resolved()) {
-                return false;
-            }
-        }
-        return true;
+        return resolutionCounter.resolved();
     }
 
     @Override
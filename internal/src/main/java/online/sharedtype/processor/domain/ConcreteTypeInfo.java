@@ -25,6 +25,10 @@ public final class ConcreteTypeInfo implements TypeInfo {
     private final List<? extends TypeInfo> typeArgs = Collections.emptyList();
     @Builder.Default
     private boolean resolved = true;
+    /** If true, the type is not resolved as configured, and should be treated as {@link Object} in output. */
+    @Builder.Default
+    private boolean opaque = false;
+    private final ResolutionCounter resolutionCounter = new ResolutionCounter();
 
     static ConcreteTypeInfo ofPredefined(String qualifiedName, String simpleName) {
         return ConcreteTypeInfo.builder().qualifiedName(qualifiedName).simpleName(simpleName).build();
@@ -32,7 +36,7 @@ public final class ConcreteTypeInfo implements TypeInfo {
 
     @Override
     public boolean resolved() {
-        return resolved && typeArgs.stream().allMatch(TypeInfo::resolved);
+        return resolutionCounter().resolved();
     }
 
     public boolean shallowResolved() {
@@ -40,7 +44,24 @@ public final class ConcreteTypeInfo implements TypeInfo {
     }
 
     public void markShallowResolved() {
-        this.resolved = true;
+        if (!resolved) {
+            this.resolved = true;
+            if (resolutionCounter.counted()) {
+                resolutionCounter.decrement();
+            }
+        }
+    }
+
+    public boolean opaque() {
+        return opaque;
+    }
+
+    /**
+     * Stop resolving this type, it's treated as resolved without a type definition.
+     */
+    public void markOpaque() {
+        this.opaque = true;
+        markShallowResolved();
     }
 
     public String qualifiedName() {
@@ -55,6 +76,17 @@ public final class ConcreteTypeInfo implements TypeInfo {
         return typeArgs;
     }
 
+    ResolutionCounter resolutionCounter() {
+        if (!resolutionCounter.counted()) {
+            resolutionCounter.markCounted();
+            if (!resolved) {
+                resolutionCounter.addUnresolved();
+            }
+            resolutionCounter.addDependencies(typeArgs);
+        }
+        return resolutionCounter;
+    }
+
     @Override
     public String toString() {
         return String.format("%s%s%s",
@@ -20,6 +20,7 @@ public final class EnumDef implements TypeDef {
     private final String simpleName;
     @Builder.Default
     private final List<EnumValueInfo> enumValueInfos = Collections.emptyList();
+    private final ResolutionCounter resolutionCounter = new ResolutionCounter();
 
     @Override
     public String qualifiedName() {
@@ -38,7 +39,13 @@ public final class EnumDef implements TypeDef {
 
     @Override
     public boolean resolved() {
-        return enumValueInfos.stream().allMatch(EnumValueInfo::resolved);
+        if (!resolutionCounter.counted()) {
+            resolutionCounter.markCounted();
+            for (EnumValueInfo enumValueInfo : enumValueInfos) {
+                resolutionCounter.addDependency(enumValueInfo.type());
+            }
+        }
+        return resolutionCounter.resolved();
     }
 
     @Override
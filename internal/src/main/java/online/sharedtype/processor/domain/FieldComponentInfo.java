@@ -21,6 +21,11 @@ public final class FieldComponentInfo implements ComponentInfo {
     public String name() {
         return name;
     }
+
+    public Set<Modifier> modifiers() {
+        return modifiers;
+    }
+
     public boolean optional() {
         return optional;
     }
@@ -0,0 +1,52 @@
+package online.sharedtype.processor.domain;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Represents a map-like type.
+ * During parsing, a predefined map-like type and its subtypes is captured as this class,
+ * with key and value types reified from the predefined map-like supertype.
+ * A type will be recognized as this type with higher priority than {@link ConcreteTypeInfo}.
+ * <br>
+ * Predefined map-like types can be configured in global properties. Default is {@link java.util.Map}.
+ *
+ * @see ArrayTypeInfo
+ * @author Cause Chung
+ */
+@RequiredArgsConstructor
+@EqualsAndHashCode
+public final class MapTypeInfo implements TypeInfo {
+    private static final long serialVersionUID = 3471256849517734082L;
+    private final TypeInfo keyType;
+    private final TypeInfo valueType;
+    @EqualsAndHashCode.Exclude
+    private final ResolutionCounter resolutionCounter = new ResolutionCounter();
+
+    public TypeInfo keyType() {
+        return keyType;
+    }
+
+    public TypeInfo valueType() {
+        return valueType;
+    }
+
+    @Override
+    public boolean resolved() {
+        return resolutionCounter().resolved();
+    }
+
+    ResolutionCounter resolutionCounter() {
+        if (!resolutionCounter.counted()) {
+            resolutionCounter.markCounted();
+            resolutionCounter.addDependency(keyType);
+            resolutionCounter.addDependency(valueType);
+        }
+        return resolutionCounter;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Map<%s,%s>", keyType, valueType);
+    }
+}
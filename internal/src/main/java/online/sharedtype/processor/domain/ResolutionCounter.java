@@ -0,0 +1,87 @@
+package online.sharedtype.processor.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts unresolved dependencies of a type, so that {@link TypeInfo#resolved()} and {@link TypeDef#resolved()} are checked in constant time.
+ * <br>
+ * A counter counts on the first check of its owner, registering itself to counters of unresolved dependencies.
+ * When a dependency becomes resolved, the counters depending on it are decremented, and so on recursively.
+ * Type infos do not reference type definitions, so counters form no cycles.
+ * State is not serialized, a deserialized counter counts again.
+ * <br>
+ * Counters are not thread-safe, type resolution state should be updated and checked by one thread at a time.
+ *
+ * @author Cause Chung
+ */
+final class ResolutionCounter implements Serializable {
+    private static final long serialVersionUID = -2418650417381297165L;
+    private static final ResolutionCounter RESOLVED = new ResolutionCounter();
+    private transient boolean counted;
+    private transient int unresolvedCount;
+    /** Counters to decrement when this becomes resolved, a counter can occur multiple times if it depends on this multiple times. */
+    private transient List<ResolutionCounter> dependents;
+
+    static ResolutionCounter of(TypeInfo typeInfo) {
+        if (typeInfo instanceof ConcreteTypeInfo) {
+            return ((ConcreteTypeInfo) typeInfo).resolutionCounter();
+        } else if (typeInfo instanceof ArrayTypeInfo) {
+            return ((ArrayTypeInfo) typeInfo).resolutionCounter();
+        } else if (typeInfo instanceof MapTypeInfo) {
+            return ((MapTypeInfo) typeInfo).resolutionCounter();
+        }
+        return RESOLVED;
+    }
+
+    boolean counted() {
+        return counted;
+    }
+
+    void markCounted() {
+        counted = true;
+    }
+
+    boolean resolved() {
+        return unresolvedCount == 0;
+    }
+
+    /**
+     * Count an unresolved state owned by the type itself.
+     */
+    void addUnresolved() {
+        unresolvedCount++;
+    }
+
+    void addDependency(TypeInfo typeInfo) {
+        ResolutionCounter dependency = of(typeInfo);
+        if (!dependency.resolved()) {
+            unresolvedCount++;
+            if (dependency.dependents == null) {
+                dependency.dependents = new ArrayList<>(2);
+            }
+            dependency.dependents.add(this);
+        }
+    }
+
+    void addDependencies(List<? extends TypeInfo> typeInfos) {
+        for (TypeInfo typeInfo : typeInfos) {
+            addDependency(typeInfo);
+        }
+    }
+
+    /**
+     * An unresolved state owned by the type itself or a dependency becomes resolved.
+     */
+    void decrement() {
+        unresolvedCount--;
+        if (unresolvedCount == 0 && dependents != null) {
+            List<ResolutionCounter> notified = dependents;
+            dependents = null;
+            for (ResolutionCounter dependent : notified) {
+                dependent.decrement();
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package online.sharedtype.processor.domain;
+
+import javax.lang.model.element.Modifier;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.ARRAY_TYPE_INFO;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.CLASS_DEF;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.CONCRETE_TYPE_INFO;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.ENUM_DEF;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.FLAG_OPAQUE;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.FLAG_OPTIONAL;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.FLAG_RESOLVED;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.HEADER_SIZE;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.INDEX_ENTRY_SIZE;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.MAGIC;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.MAP_TYPE_INFO;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.TYPE_VARIABLE_INFO;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_BOOLEAN;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_BYTE;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_CHAR;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_DOUBLE;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_FLOAT;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_INT;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_LONG;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_NULL;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_SHORT;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_STRING;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VERSION;
+
+/**
+ * Encodes type definitions into the binary metadata format, see {@link TypeDefBinaryFormat} for the layout.
+ * <br>
+ * Type definitions are encoded as they are added, strings are deduplicated into the string table,
+ * the file is assembled by {@link #toByteArray()}. Not thread-safe.
+ *
+ * @see TypeDefBinaryReader
+ * @author Cause Chung
+ */
+public final class TypeDefBinaryEncoder {
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final List<Integer> qualifiedNameIds = new ArrayList<>();
+    private final List<Integer> recordOffsets = new ArrayList<>();
+    private final ByteArrayOutputStream records = new ByteArrayOutputStream(8192);
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+
+    public void add(TypeDef typeDef) {
+        record.reset();
+        if (typeDef instanceof ClassDef) {
+            writeClassDef((ClassDef) typeDef);
+        } else if (typeDef instanceof EnumDef) {
+            writeEnumDef((EnumDef) typeDef);
+        } else {
+            throw new IllegalArgumentException("Unsupported TypeDef type: " + typeDef.getClass());
+        }
+        qualifiedNameIds.add(stringId(typeDef.qualifiedName()));
+        recordOffsets.add(records.size());
+        writeInt(records, record.size());
+        writeTo(record, records);
+    }
+
+    public int size() {
+        return recordOffsets.size();
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream strTable = new ByteArrayOutputStream(strings.size() * 32);
+        int[] stringOffsets = new int[strings.size()];
+        for (int i = 0; i < strings.size(); i++) {
+            stringOffsets[i] = strTable.size();
+            byte[] bytes = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            writeVarInt(strTable, bytes.length);
+            strTable.write(bytes, 0, bytes.length);
+        }
+
+        int typeDefCount = recordOffsets.size();
+        int indexOffset = HEADER_SIZE;
+        int stringOffsetsOffset = indexOffset + typeDefCount * INDEX_ENTRY_SIZE;
+        int stringsOffset = stringOffsetsOffset + strings.size() * Integer.BYTES;
+        int recordsOffset = stringsOffset + strTable.size();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(recordsOffset + records.size());
+        writeInt(out, MAGIC);
+        writeInt(out, VERSION);
+        writeInt(out, typeDefCount);
+        writeInt(out, strings.size());
+        writeInt(out, indexOffset);
+        writeInt(out, stringOffsetsOffset);
+        for (int i = 0; i < typeDefCount; i++) {
+            writeInt(out, qualifiedNameIds.get(i));
+            writeInt(out, recordsOffset + recordOffsets.get(i));
+        }
+        for (int stringOffset : stringOffsets) {
+            writeInt(out, stringsOffset + stringOffset);
+        }
+        writeTo(strTable, out);
+        writeTo(records, out);
+        return out.toByteArray();
+    }
+
+    private void writeClassDef(ClassDef classDef) {
+        record.write(CLASS_DEF);
+        writeVarInt(record, stringId(classDef.qualifiedName()));
+        writeNullableString(classDef.simpleName());
+        writeVarInt(record, classDef.typeVariables().size());
+        for (TypeVariableInfo typeVariable : classDef.typeVariables()) {
+            writeTypeInfo(typeVariable);
+        }
+        writeTypeInfos(classDef.supertypes());
+        writeVarInt(record, classDef.components().size());
+        for (FieldComponentInfo component : classDef.components()) {
+            writeNullableString(component.name());
+            record.write(component.optional() ? FLAG_OPTIONAL : 0);
+            writeModifiers(component.modifiers());
+            writeTypeInfo(component.type());
+        }
+    }
+
+    private void writeEnumDef(EnumDef enumDef) {
+        record.write(ENUM_DEF);
+        writeVarInt(record, stringId(enumDef.qualifiedName()));
+        writeNullableString(enumDef.simpleName());
+        writeVarInt(record, enumDef.components().size());
+        for (EnumValueInfo component : enumDef.components()) {
+            writeTypeInfo(component.type());
+            writeValue(component.value());
+        }
+    }
+
+    private void writeTypeInfos(List<? extends TypeInfo> typeInfos) {
+        writeVarInt(record, typeInfos.size());
+        for (TypeInfo typeInfo : typeInfos) {
+            writeTypeInfo(typeInfo);
+        }
+    }
+
+    private void writeTypeInfo(TypeInfo typeInfo) {
+        if (typeInfo instanceof ConcreteTypeInfo) {
+            ConcreteTypeInfo concreteTypeInfo = (ConcreteTypeInfo) typeInfo;
+            record.write(CONCRETE_TYPE_INFO);
+            writeNullableString(concreteTypeInfo.qualifiedName());
+            writeNullableString(concreteTypeInfo.simpleName());
+            record.write((concreteTypeInfo.shallowResolved() ? FLAG_RESOLVED : 0) | (concreteTypeInfo.opaque() ? FLAG_OPAQUE : 0));
+            writeTypeInfos(concreteTypeInfo.typeArgs());
+        } else if (typeInfo instanceof ArrayTypeInfo) {
+            record.write(ARRAY_TYPE_INFO);
+            writeTypeInfo(((ArrayTypeInfo) typeInfo).component());
+        } else if (typeInfo instanceof MapTypeInfo) {
+            MapTypeInfo mapTypeInfo = (MapTypeInfo) typeInfo;
+            record.write(MAP_TYPE_INFO);
+            writeTypeInfo(mapTypeInfo.keyType());
+            writeTypeInfo(mapTypeInfo.valueType());
+        } else if (typeInfo instanceof TypeVariableInfo) {
+            record.write(TYPE_VARIABLE_INFO);
+            writeNullableString(((TypeVariableInfo) typeInfo).name());
+        } else {
+            throw new IllegalArgumentException("Unsupported TypeInfo type: " + typeInfo.getClass());
+        }
+    }
+
+    /** Modifiers are written by name, as ordinals vary across JDK versions. */
+    private void writeModifiers(Collection<Modifier> modifiers) {
+        if (modifiers == null) {
+            writeVarInt(record, 0);
+            return;
+        }
+        writeVarInt(record, modifiers.size() + 1);
+        for (Modifier modifier : modifiers) {
+            writeVarInt(record, stringId(modifier.name()));
+        }
+    }
+
+    private void writeValue(Object value) {
+        if (value == null) {
+            record.write(VALUE_NULL);
+        } else if (value instanceof String) {
+            record.write(VALUE_STRING);
+            writeVarInt(record, stringId((String) value));
+        } else if (value instanceof Integer) {
+            record.write(VALUE_INT);
+            writeVarLong(record, zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            record.write(VALUE_LONG);
+            writeVarLong(record, zigZag((Long) value));
+        } else if (value instanceof Boolean) {
+            record.write(VALUE_BOOLEAN);
+            record.write((Boolean) value ? 1 : 0);
+        } else if (value instanceof Character) {
+            record.write(VALUE_CHAR);
+            writeVarInt(record, (Character) value);
+        } else if (value instanceof Byte) {
+            record.write(VALUE_BYTE);
+            record.write((Byte) value);
+        } else if (value instanceof Short) {
+            record.write(VALUE_SHORT);
+            writeVarLong(record, zigZag((Short) value));
+        } else if (value instanceof Float) {
+            record.write(VALUE_FLOAT);
+            writeInt(record, Float.floatToIntBits((Float) value));
+        } else if (value instanceof Double) {
+            record.write(VALUE_DOUBLE);
+            long bits = Double.doubleToLongBits((Double) value);
+            writeInt(record, (int) (bits >>> 32));
+            writeInt(record, (int) bits);
+        } else {
+            throw new IllegalArgumentException("Unsupported value type: " + value.getClass());
+        }
+    }
+
+    private void writeNullableString(String value) {
+        writeVarInt(record, value == null ? 0 : stringId(value) + 1);
+    }
+
+    private int stringId(String value) {
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            stringIds.put(value, id);
+            strings.add(value);
+        }
+        return id;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeTo(ByteArrayOutputStream from, ByteArrayOutputStream to) {
+        try {
+            from.writeTo(to);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unexpected IOException from in-memory stream", e); // never thrown by ByteArrayOutputStream
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package online.sharedtype.processor.domain;
+
+/**
+ * Constants of the binary metadata format, shared by {@link TypeDefBinaryEncoder} and {@link TypeDefBinaryReader}.
+ * <br>
+ * Layout of a file, multibyte integers are big-endian:
+ * <pre>
+ * header:         magic (int), version (int), typeDefCount (int), stringCount (int), indexOffset (int), stringOffsetsOffset (int)
+ * index:          typeDefCount entries of (qualifiedName string id (int), record offset (int)), type id is the entry position
+ * string offsets: stringCount ints, offsets of strings
+ * strings:        length (varint) prefixed UTF-8 bytes
+ * records:        length (int) prefixed encoded type definitions
+ * </pre>
+ * Within a record, counts and string ids are unsigned varints, a nullable string is referenced as string id + 1, 0 for null.
+ *
+ * @author Cause Chung
+ */
+final class TypeDefBinaryFormat {
+    static final int MAGIC = 0x53544244; // "STBD"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 6 * Integer.BYTES;
+    static final int INDEX_ENTRY_SIZE = 2 * Integer.BYTES;
+
+    static final byte CLASS_DEF = 1;
+    static final byte ENUM_DEF = 2;
+
+    static final byte CONCRETE_TYPE_INFO = 1;
+    static final byte ARRAY_TYPE_INFO = 2;
+    static final byte MAP_TYPE_INFO = 3;
+    static final byte TYPE_VARIABLE_INFO = 4;
+
+    static final int FLAG_RESOLVED = 1;
+    static final int FLAG_OPAQUE = 1 << 1;
+    static final int FLAG_OPTIONAL = 1 << 2;
+
+    static final byte VALUE_NULL = 0;
+    static final byte VALUE_STRING = 1;
+    static final byte VALUE_INT = 2;
+    static final byte VALUE_LONG = 3;
+    static final byte VALUE_BOOLEAN = 4;
+    static final byte VALUE_CHAR = 5;
+    static final byte VALUE_BYTE = 6;
+    static final byte VALUE_SHORT = 7;
+    static final byte VALUE_FLOAT = 8;
+    static final byte VALUE_DOUBLE = 9;
+
+    private TypeDefBinaryFormat() {
+    }
+}
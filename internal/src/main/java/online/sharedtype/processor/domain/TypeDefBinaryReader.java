@@ -0,0 +1,312 @@
+package online.sharedtype.processor.domain;
+
+import javax.lang.model.element.Modifier;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.ARRAY_TYPE_INFO;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.CLASS_DEF;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.CONCRETE_TYPE_INFO;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.ENUM_DEF;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.FLAG_OPAQUE;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.FLAG_OPTIONAL;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.FLAG_RESOLVED;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.HEADER_SIZE;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.INDEX_ENTRY_SIZE;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.MAGIC;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.MAP_TYPE_INFO;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.TYPE_VARIABLE_INFO;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_BOOLEAN;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_BYTE;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_CHAR;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_DOUBLE;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_FLOAT;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_INT;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_LONG;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_NULL;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_SHORT;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VALUE_STRING;
+import static online.sharedtype.processor.domain.TypeDefBinaryFormat.VERSION;
+
+/**
+ * Reads type definitions from the binary metadata format written by {@link TypeDefBinaryEncoder}.
+ * <br>
+ * A type definition is decoded on request by its type id, i.e. its position in the file, or its qualified name,
+ * without decoding other type definitions. Strings are decoded once and cached.
+ * Files are memory-mapped, so that only the pages accessed are read.
+ *
+ * @author Cause Chung
+ */
+public final class TypeDefBinaryReader {
+    private final ByteBuffer buffer;
+    private final int typeDefCount;
+    private final int indexOffset;
+    private final int stringOffsetsOffset;
+    private final String[] strings;
+    private volatile Map<String, Integer> typeIds;
+
+    private TypeDefBinaryReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a SharedType binary metadata file.");
+        }
+        int version = buffer.getInt(Integer.BYTES);
+        if (version != VERSION) {
+            throw new IllegalArgumentException(String.format("Unsupported binary metadata version: %s, expected: %s", version, VERSION));
+        }
+        this.typeDefCount = buffer.getInt(2 * Integer.BYTES);
+        this.strings = new String[buffer.getInt(3 * Integer.BYTES)];
+        this.indexOffset = buffer.getInt(4 * Integer.BYTES);
+        this.stringOffsetsOffset = buffer.getInt(5 * Integer.BYTES);
+    }
+
+    /**
+     * Memory-map a binary metadata file. The mapping stays valid after the file is closed.
+     */
+    public static TypeDefBinaryReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new TypeDefBinaryReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @param buffer content of a binary metadata file, from its position to its limit.
+     */
+    public static TypeDefBinaryReader of(ByteBuffer buffer) {
+        return new TypeDefBinaryReader(buffer.slice());
+    }
+
+    /**
+     * @return number of type definitions, type ids are from 0 until this number.
+     */
+    public int size() {
+        return typeDefCount;
+    }
+
+    public String qualifiedName(int typeId) {
+        return string(buffer.getInt(indexEntryOffset(typeId)));
+    }
+
+    public List<String> qualifiedNames() {
+        List<String> names = new ArrayList<>(typeDefCount);
+        for (int i = 0; i < typeDefCount; i++) {
+            names.add(qualifiedName(i));
+        }
+        return names;
+    }
+
+    public TypeDef read(int typeId) {
+        int offset = buffer.getInt(indexEntryOffset(typeId) + Integer.BYTES);
+        int length = buffer.getInt(offset);
+        ByteBuffer in = buffer.duplicate();
+        in.limit(offset + Integer.BYTES + length);
+        in.position(offset + Integer.BYTES);
+        byte kind = in.get();
+        if (kind == CLASS_DEF) {
+            return readClassDef(in);
+        } else if (kind == ENUM_DEF) {
+            return readEnumDef(in);
+        }
+        throw new IllegalStateException(String.format("Unknown type definition kind %s of type id %s", kind, typeId));
+    }
+
+    /**
+     * @return the type definition, or null if no type definition has the qualified name.
+     */
+    public TypeDef read(String qualifiedName) {
+        Integer typeId = typeIds().get(qualifiedName);
+        return typeId == null ? null : read(typeId);
+    }
+
+    private Map<String, Integer> typeIds() {
+        Map<String, Integer> ids = typeIds;
+        if (ids == null) {
+            ids = new HashMap<>(typeDefCount * 2);
+            for (int i = 0; i < typeDefCount; i++) {
+                ids.put(qualifiedName(i), i);
+            }
+            typeIds = ids;
+        }
+        return ids;
+    }
+
+    private int indexEntryOffset(int typeId) {
+        if (typeId < 0 || typeId >= typeDefCount) {
+            throw new IndexOutOfBoundsException(String.format("Type id %s out of range [0, %s)", typeId, typeDefCount));
+        }
+        return indexOffset + typeId * INDEX_ENTRY_SIZE;
+    }
+
+    private ClassDef readClassDef(ByteBuffer in) {
+        ClassDef.ClassDefBuilder builder = ClassDef.builder()
+            .qualifiedName(string(readVarInt(in)))
+            .simpleName(readNullableString(in));
+        int typeVariableCount = readVarInt(in);
+        List<TypeVariableInfo> typeVariables = new ArrayList<>(typeVariableCount);
+        for (int i = 0; i < typeVariableCount; i++) {
+            typeVariables.add((TypeVariableInfo) readTypeInfo(in));
+        }
+        builder.typeVariables(typeVariables);
+        builder.supertypes(readTypeInfos(in));
+        int componentCount = readVarInt(in);
+        List<FieldComponentInfo> components = new ArrayList<>(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            String name = readNullableString(in);
+            int flags = in.get();
+            components.add(FieldComponentInfo.builder()
+                .name(name)
+                .optional((flags & FLAG_OPTIONAL) != 0)
+                .modifiers(readModifiers(in))
+                .type(readTypeInfo(in))
+                .build());
+        }
+        return builder.components(components).build();
+    }
+
+    private EnumDef readEnumDef(ByteBuffer in) {
+        EnumDef.EnumDefBuilder builder = EnumDef.builder()
+            .qualifiedName(string(readVarInt(in)))
+            .simpleName(readNullableString(in));
+        int valueCount = readVarInt(in);
+        List<EnumValueInfo> enumValueInfos = new ArrayList<>(valueCount);
+        for (int i = 0; i < valueCount; i++) {
+            TypeInfo type = readTypeInfo(in);
+            enumValueInfos.add(new EnumValueInfo(type, readValue(in)));
+        }
+        return builder.enumValueInfos(enumValueInfos).build();
+    }
+
+    private List<TypeInfo> readTypeInfos(ByteBuffer in) {
+        int count = readVarInt(in);
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<TypeInfo> typeInfos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            typeInfos.add(readTypeInfo(in));
+        }
+        return typeInfos;
+    }
+
+    private TypeInfo readTypeInfo(ByteBuffer in) {
+        byte kind = in.get();
+        switch (kind) {
+            case CONCRETE_TYPE_INFO:
+                String qualifiedName = readNullableString(in);
+                String simpleName = readNullableString(in);
+                int flags = in.get();
+                return ConcreteTypeInfo.builder()
+                    .qualifiedName(qualifiedName)
+                    .simpleName(simpleName)
+                    .resolved((flags & FLAG_RESOLVED) != 0)
+                    .opaque((flags & FLAG_OPAQUE) != 0)
+                    .typeArgs(readTypeInfos(in))
+                    .build();
+            case ARRAY_TYPE_INFO:
+                return new ArrayTypeInfo(readTypeInfo(in));
+            case MAP_TYPE_INFO:
+                TypeInfo keyType = readTypeInfo(in);
+                return new MapTypeInfo(keyType, readTypeInfo(in));
+            case TYPE_VARIABLE_INFO:
+                return TypeVariableInfo.builder().name(readNullableString(in)).build();
+            default:
+                throw new IllegalStateException("Unknown type info kind: " + kind);
+        }
+    }
+
+    /** Modifiers unknown to the running JDK are skipped. */
+    private Set<Modifier> readModifiers(ByteBuffer in) {
+        int count = readVarInt(in);
+        if (count == 0) {
+            return null;
+        }
+        Set<Modifier> modifiers = EnumSet.noneOf(Modifier.class);
+        for (int i = 0; i < count - 1; i++) {
+            String name = string(readVarInt(in));
+            for (Modifier modifier : Modifier.values()) {
+                if (modifier.name().equals(name)) {
+                    modifiers.add(modifier);
+                    break;
+                }
+            }
+        }
+        return modifiers;
+    }
+
+    private Object readValue(ByteBuffer in) {
+        byte kind = in.get();
+        switch (kind) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                return string(readVarInt(in));
+            case VALUE_INT:
+                return (int) unZigZag(readVarLong(in));
+            case VALUE_LONG:
+                return unZigZag(readVarLong(in));
+            case VALUE_BOOLEAN:
+                return in.get() != 0;
+            case VALUE_CHAR:
+                return (char) readVarInt(in);
+            case VALUE_BYTE:
+                return in.get();
+            case VALUE_SHORT:
+                return (short) unZigZag(readVarLong(in));
+            case VALUE_FLOAT:
+                return in.getFloat();
+            case VALUE_DOUBLE:
+                return in.getDouble();
+            default:
+                throw new IllegalStateException("Unknown value kind: " + kind);
+        }
+    }
+
+    private String readNullableString(ByteBuffer in) {
+        int id = readVarInt(in);
+        return id == 0 ? null : string(id - 1);
+    }
+
+    private String string(int id) {
+        String value = strings[id];
+        if (value == null) {
+            ByteBuffer in = buffer.duplicate();
+            in.position(buffer.getInt(stringOffsetsOffset + id * Integer.BYTES));
+            byte[] bytes = new byte[readVarInt(in)];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = value;
+        }
+        return value;
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        return (int) readVarLong(in);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
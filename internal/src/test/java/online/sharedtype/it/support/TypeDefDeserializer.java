@@ -1,15 +1,21 @@
 package online.sharedtype.it.support;
 
 import online.sharedtype.processor.domain.TypeDef;
+import online.sharedtype.processor.domain.TypeDefBinaryReader;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Paths;
 
 import static java.util.Objects.requireNonNull;
 
 public final class TypeDefDeserializer {
     private static final ClassLoader classLoader = TypeDefDeserializer.class.getClassLoader();
+    private static final String BINARY_FILENAME = "sharedtype-types.bin";
+    private static TypeDefBinaryReader binaryReader;
     private TypeDefDeserializer() {}
 
     public static TypeDef deserializeTypeDef(String serFilename) {
@@ -21,6 +27,25 @@ public final class TypeDefDeserializer {
         }
     }
 
+    /**
+     * Read a type definition from the binary metadata file.
+     */
+    public static TypeDef deserializeBinaryTypeDef(String qualifiedName) {
+        return requireNonNull(binaryReader().read(qualifiedName), "Cannot find " + qualifiedName + " in " + BINARY_FILENAME);
+    }
+
+    public static synchronized TypeDefBinaryReader binaryReader() {
+        if (binaryReader == null) {
+            URL url = requireNonNull(classLoader.getResource(BINARY_FILENAME), "Cannot find " + BINARY_FILENAME);
+            try {
+                binaryReader = TypeDefBinaryReader.open(Paths.get(url.toURI()));
+            } catch (IOException | URISyntaxException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return binaryReader;
+    }
+
     public static boolean doesResourceExist(String serFilename) {
         return classLoader.getResource(serFilename) != null;
     }
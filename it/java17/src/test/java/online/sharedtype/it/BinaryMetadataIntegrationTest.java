@@ -0,0 +1,46 @@
+package online.sharedtype.it;
+
+import online.sharedtype.processor.domain.ClassDef;
+import online.sharedtype.processor.domain.FieldComponentInfo;
+import online.sharedtype.processor.domain.TypeDef;
+import online.sharedtype.processor.domain.TypeDefBinaryReader;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.Test;
+
+import static online.sharedtype.it.support.TypeDefDeserializer.binaryReader;
+import static online.sharedtype.it.support.TypeDefDeserializer.deserializeBinaryTypeDef;
+import static online.sharedtype.it.support.TypeDefDeserializer.deserializeTypeDef;
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class BinaryMetadataIntegrationTest {
+    @Test
+    void sameAsJavaSerializedTypeDefs() {
+        TypeDefBinaryReader reader = binaryReader();
+        assertThat(reader.qualifiedNames()).contains(
+            "online.sharedtype.it.java17.JavaRecord",
+            "online.sharedtype.it.java8.Container",
+            "online.sharedtype.it.java8.EnumSize"
+        );
+        assertThat(deserializeBinaryTypeDef("online.sharedtype.it.java17.JavaRecord").simpleName()).isEqualTo("JavaRecord");
+        SoftAssertions.assertSoftly(softly -> {
+            for (int i = 0; i < reader.size(); i++) {
+                TypeDef typeDef = reader.read(i);
+                TypeDef serializedTypeDef = deserializeTypeDef(typeDef.qualifiedName() + ".ser");
+                softly.assertThat(typeDef.getClass()).isEqualTo(serializedTypeDef.getClass());
+                softly.assertThat(typeDef.simpleName()).isEqualTo(serializedTypeDef.simpleName());
+                softly.assertThat(typeDef.toString()).isEqualTo(serializedTypeDef.toString());
+                softly.assertThat(typeDef.resolved()).isEqualTo(serializedTypeDef.resolved());
+                if (typeDef instanceof ClassDef) {
+                    ClassDef classDef = (ClassDef) typeDef;
+                    ClassDef serializedClassDef = (ClassDef) serializedTypeDef;
+                    softly.assertThat(classDef.supertypes()).isEqualTo(serializedClassDef.supertypes());
+                    softly.assertThat(classDef.typeVariables()).isEqualTo(serializedClassDef.typeVariables());
+                    softly.assertThat(classDef.components()).extracting(FieldComponentInfo::type)
+                        .isEqualTo(serializedClassDef.components().stream().map(FieldComponentInfo::type).toList());
+                } else {
+                    softly.assertThat(typeDef.components()).isEqualTo(serializedTypeDef.components());
+                }
+            }
+        });
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.TestInstance;
 import online.sharedtype.processor.domain.ArrayTypeInfo;
 import online.sharedtype.processor.domain.ClassDef;
 import online.sharedtype.processor.domain.ConcreteTypeInfo;
+import online.sharedtype.processor.domain.MapTypeInfo;
 import online.sharedtype.processor.domain.TypeVariableInfo;
 
 import static online.sharedtype.it.support.TypeDefDeserializer.deserializeTypeDef;
@@ -245,7 +246,13 @@ final class JavaRecordIntegrationTest {
 
     @Test
     void genericMapField() {
-        // TODO
+        var genericMapField = classDef.components().get(25);
+        assertThat(genericMapField.name()).isEqualTo("genericMap");
+        var mapTypeInfo = (MapTypeInfo)genericMapField.type();
+        var keyTypeInfo = (TypeVariableInfo)mapTypeInfo.keyType();
+        assertThat(keyTypeInfo.name()).isEqualTo("K");
+        var valueTypeInfo = (TypeVariableInfo)mapTypeInfo.valueType();
+        assertThat(valueTypeInfo.name()).isEqualTo("T");
     }
 
     @Test
@@ -3,7 +3,10 @@ package online.sharedtype.processor;
 import com.google.auto.service.AutoService;
 import online.sharedtype.processor.domain.TypeDef;
 import online.sharedtype.processor.context.Context;
+import online.sharedtype.processor.context.ProcessingMetrics;
 import online.sharedtype.processor.context.PropsFactory;
+import online.sharedtype.processor.context.TypeDefCache;
+import online.sharedtype.processor.context.TypeStore;
 import online.sharedtype.processor.parser.TypeDefParser;
 import online.sharedtype.processor.resolver.TypeResolver;
 import online.sharedtype.support.annotation.VisibleForTesting;
@@ -19,8 +22,11 @@ import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.annotation.processing.SupportedOptions;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.tools.FileObject;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
@@ -44,6 +50,19 @@ public final class AnnotationProcessorImpl extends AbstractProcessor {
     TypeDefParser parser;
     TypeResolver resolver;
     TypeWriter writer;
+    private final StageInterceptor stageInterceptor;
+    private final List<TypeDef> discoveredDefs = new ArrayList<>();
+
+    public AnnotationProcessorImpl() {
+        this(new StageInterceptor() {});
+    }
+
+    /**
+     * @param stageInterceptor wraps pipeline stages when they are created, e.g. to measure them in benchmarks.
+     */
+    public AnnotationProcessorImpl(StageInterceptor stageInterceptor) {
+        this.stageInterceptor = stageInterceptor;
+    }
 
     @Override
     public SourceVersion getSupportedSourceVersion() {
@@ -55,47 +74,114 @@ public final class AnnotationProcessorImpl extends AbstractProcessor {
         super.init(processingEnv);
         String configFile = processingEnv.getOptions().getOrDefault(PROPS_FILE_OPTION_NAME, DEFAULT_USER_PROPS_FILE);
         ctx = new Context(processingEnv, PropsFactory.loadProps(Paths.get(configFile)));
-        parser = TypeDefParser.create(ctx);
-        resolver = TypeResolver.create(ctx, parser);
-        writer = TypeWriter.create(ctx);
+        parser = stageInterceptor.parser(TypeDefParser.create(ctx));
+        resolver = stageInterceptor.resolver(TypeResolver.create(ctx, parser));
+        writer = stageInterceptor.writer(TypeWriter.create(ctx));
     }
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
-        if (annotations.isEmpty()) {
-            return ANNOTATION_CONSUMED;
+        if (!annotations.isEmpty()) {
+            if (annotations.size() > 1) {
+                throw new SharedTypeInternalError(String.format("Only annotation %s is expected.", ANNOTATION_QUALIFIED_NAME));
+            }
+            TypeElement annotation = annotations.iterator().next();
+            checkArgument(annotation.getQualifiedName().contentEquals(ANNOTATION_QUALIFIED_NAME), "Wrong anno: %s", annotation);
+            doProcess(roundEnv.getElementsAnnotatedWith(annotation));
         }
-        if (annotations.size() > 1) {
-            throw new SharedTypeInternalError(String.format("Only annotation %s is expected.", ANNOTATION_QUALIFIED_NAME));
+        if (roundEnv.processingOver()) {
+            doFinish();
         }
-        TypeElement annotation = annotations.iterator().next();
-        checkArgument(annotation.getQualifiedName().contentEquals(ANNOTATION_QUALIFIED_NAME), "Wrong anno: %s", annotation);
-
-        doProcess(roundEnv.getElementsAnnotatedWith(annotation));
         return ANNOTATION_CONSUMED;
     }
 
+    /**
+     * Parse annotated types of a round. Types generated by other processors may appear in later rounds.
+     */
     @VisibleForTesting
     void doProcess(Set<? extends Element> elements) {
-        List<TypeDef> discoveredDefs = new ArrayList<>(elements.size());
         for (Element element : elements) {
             if (element instanceof TypeElement) {
                 TypeElement typeElement = (TypeElement) element;
+                ctx.addOriginatingElement(typeElement);
                 TypeDef typeDef = parser.parse(typeElement);
                 if (typeDef != null) {
                     discoveredDefs.add(typeDef);
                 } else {
                     ctx.warning("Type '%s' is ignored or invalid, but annotated with '%s'.", typeElement.getQualifiedName().toString(), ANNOTATION_QUALIFIED_NAME);
                 }
-            } else {
+            } else if (!(element instanceof PackageElement)) { // package annotation only provides defaults of types in the package
                 throw new SharedTypeInternalError(String.format("Unsupported element: %s of kind %s", element, element.getKind()));
             }
         }
-        List<TypeDef> resolvedDefs = resolver.resolve(discoveredDefs);
+    }
+
+    /**
+     * Resolve and write types discovered in all rounds, only once in the final round.
+     * Types are written as soon as they are resolved.
+     */
+    @VisibleForTesting
+    void doFinish() {
+        if (discoveredDefs.isEmpty()) {
+            return;
+        }
         try {
-            writer.write(resolvedDefs);
+            writer.begin();
+            resolver.resolve(discoveredDefs, this::writeTypeDef);
+            writer.end();
+            TypeDefCache typeDefCache = ctx.getTypeDefCache();
+            if (typeDefCache != null && !ctx.isErrorReported()) {
+                typeDefCache.save();
+            }
+            ProcessingMetrics metrics = ctx.getMetrics();
+            if (metrics != null) {
+                writeMetrics(metrics);
+            }
         } catch (IOException e) {
             throw new SharedTypeException("Failed to write,", e);
+        } finally {
+            ctx.close();
+        }
+    }
+
+    private void writeTypeDef(TypeDef typeDef) {
+        try {
+            writer.accept(typeDef);
+        } catch (IOException e) {
+            throw new SharedTypeException("Failed to write,", e);
+        }
+    }
+
+    private void writeMetrics(ProcessingMetrics metrics) throws IOException {
+        TypeStore typeStore = ctx.getTypeStore();
+        metrics.addCounter("TypeStore.typeDefHits", typeStore.getTypeDefHitCount());
+        metrics.addCounter("TypeStore.typeDefMisses", typeStore.getTypeDefMissCount());
+        metrics.addCounter("TypeStore.typeInfoHits", typeStore.getTypeInfoHitCount());
+        metrics.addCounter("TypeStore.typeInfoMisses", typeStore.getTypeInfoMissCount());
+        TypeDefCache typeDefCache = ctx.getTypeDefCache();
+        if (typeDefCache != null) {
+            metrics.addCounter("TypeDefCache.reused", typeDefCache.getReusedCount());
+        }
+        FileObject file = ctx.createSourceOutput(ctx.getProps().getMetricsOutputFileName());
+        try (Writer writer = file.openWriter()) {
+            metrics.writeJson(writer);
+        }
+    }
+
+    /**
+     * Wraps pipeline stages. The resolver is created with the wrapped parser, so that it parses dependencies through it.
+     */
+    public interface StageInterceptor {
+        default TypeDefParser parser(TypeDefParser parser) {
+            return parser;
+        }
+
+        default TypeResolver resolver(TypeResolver resolver) {
+            return resolver;
+        }
+
+        default TypeWriter writer(TypeWriter writer) {
+            return writer;
         }
     }
 }
@@ -2,46 +2,121 @@ package online.sharedtype.processor.context;
 
 import lombok.Getter;
 import online.sharedtype.SharedType;
+import online.sharedtype.processor.domain.Constants;
+import online.sharedtype.support.exception.SharedTypeInternalError;
 
+import javax.annotation.Nullable;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
-import java.util.Arrays;
+import javax.lang.model.element.VariableElement;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Config wrappers.
+ * <br>
+ * {@link SharedType} is read via {@link AnnotationMirror}s rather than annotation proxies.
+ * Values not specified on a type are inherited from {@link SharedType} on its package, or the annotation's default values.
  *
+ * @see Context#getConfig(TypeElement)
  * @author Cause Chung
  */
 public final class Config {
-    private final SharedType anno;
+    /** Default value of {@link SharedType#includes()}. */
+    static final Set<SharedType.ComponentType> DEFAULT_INCLUDES = readDefaultIncludes();
+    private static final String NAME_ATTRIBUTE = "name";
+    private static final String INCLUDES_ATTRIBUTE = "includes";
+
     @Getter
     private final String name;
     @Getter
     private final String qualifiedName;
     private final Set<SharedType.ComponentType> includedComponentTypes;
 
-    @Retention(RetentionPolicy.RUNTIME)
-    private @interface AnnoContainer {
-        SharedType anno() default @SharedType;
+    private Config(String name, String qualifiedName, Set<SharedType.ComponentType> includedComponentTypes) {
+        this.name = name;
+        this.qualifiedName = qualifiedName;
+        this.includedComponentTypes = includedComponentTypes;
     }
 
-    @AnnoContainer
-    private static class DummyDefault {
+    /**
+     * @param inheritedIncludes included component types if not specified on the type.
+     */
+    static Config of(TypeElement typeElement, Set<SharedType.ComponentType> inheritedIncludes) {
+        String name = null;
+        Set<SharedType.ComponentType> includes = inheritedIncludes;
+        AnnotationMirror anno = findAnnotation(typeElement);
+        if (anno != null) {
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : anno.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals(NAME_ATTRIBUTE)) {
+                    name = (String) entry.getValue().getValue();
+                } else if (entry.getKey().getSimpleName().contentEquals(INCLUDES_ATTRIBUTE)) {
+                    includes = readIncludes(entry.getValue());
+                }
+            }
+        }
+        return new Config(
+            name == null || name.isEmpty() ? typeElement.getSimpleName().toString() : name,
+            typeElement.getQualifiedName().toString(),
+            includes
+        );
     }
 
-    public Config(TypeElement typeElement) {
-        String simpleName = typeElement.getSimpleName().toString();
-        SharedType annoFromType = typeElement.getAnnotation(SharedType.class);
-        this.anno = annoFromType == null ? DummyDefault.class.getAnnotation(AnnoContainer.class).anno() : annoFromType;
-        this.name = anno.name().isEmpty() ? simpleName : anno.name();
-        this.qualifiedName = typeElement.getQualifiedName().toString();
-        this.includedComponentTypes = EnumSet.copyOf(Arrays.asList(anno.includes()));
+    /**
+     * @return included component types specified on the package, or default values.
+     */
+    static Set<SharedType.ComponentType> packageIncludes(PackageElement packageElement) {
+        AnnotationMirror anno = findAnnotation(packageElement);
+        if (anno != null) {
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : anno.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals(INCLUDES_ATTRIBUTE)) {
+                    return readIncludes(entry.getValue());
+                }
+            }
+        }
+        return DEFAULT_INCLUDES;
     }
 
     public boolean includes(SharedType.ComponentType componentType) {
         return includedComponentTypes.contains(componentType);
     }
+
+    @Nullable
+    private static AnnotationMirror findAnnotation(Element element) {
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            Element annotationElement = annotationMirror.getAnnotationType().asElement();
+            if (annotationElement instanceof TypeElement
+                && ((TypeElement) annotationElement).getQualifiedName().contentEquals(Constants.ANNOTATION_QUALIFIED_NAME)) {
+                return annotationMirror;
+            }
+        }
+        return null;
+    }
+
+    private static Set<SharedType.ComponentType> readIncludes(AnnotationValue annotationValue) {
+        Set<SharedType.ComponentType> includes = EnumSet.noneOf(SharedType.ComponentType.class);
+        for (Object value : (List<?>) annotationValue.getValue()) {
+            VariableElement enumConstant = (VariableElement) ((AnnotationValue) value).getValue();
+            includes.add(SharedType.ComponentType.valueOf(enumConstant.getSimpleName().toString()));
+        }
+        return Collections.unmodifiableSet(includes);
+    }
+
+    private static Set<SharedType.ComponentType> readDefaultIncludes() {
+        try {
+            SharedType.ComponentType[] defaultValue = (SharedType.ComponentType[]) SharedType.class.getMethod(INCLUDES_ATTRIBUTE).getDefaultValue();
+            Set<SharedType.ComponentType> includes = EnumSet.noneOf(SharedType.ComponentType.class);
+            Collections.addAll(includes, defaultValue);
+            return Collections.unmodifiableSet(includes);
+        } catch (NoSuchMethodException e) {
+            throw new SharedTypeInternalError("Failed to read default value of SharedType.includes()", e);
+        }
+    }
 }
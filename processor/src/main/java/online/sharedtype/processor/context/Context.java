@@ -4,8 +4,13 @@ import com.sun.source.util.Trees;
 import lombok.Getter;
 import online.sharedtype.SharedType;
 
+import javax.annotation.Nullable;
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
@@ -13,7 +18,17 @@ import javax.tools.Diagnostic;
 import javax.tools.FileObject;
 import javax.tools.StandardLocation;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
@@ -22,6 +37,7 @@ import java.util.stream.Collectors;
  * @author Cause Chung
  */
 public final class Context {
+    private static final int MAX_UNWRAP_DEPTH = 3;
     @Getter
     private final TypeStore typeStore = new TypeStore();
     @Getter
@@ -30,19 +46,50 @@ public final class Context {
     private final Props props;
     private final Types types;
     private final Elements elements;
-    @Getter
+    /** Null if the compiler Tree API is not available, see {@link #createTrees(ProcessingEnvironment)}. */
+    @Getter @Nullable
     private final Trees trees;
+    /** Resolved once and compared by identity, as a type element is unique in a compilation. */
+    private final Set<TypeElement> ignoredTypes;
     private final Set<TypeMirror> arraylikeTypes;
+    private final Set<TypeMirror> maplikeTypes;
+    private final Set<TypeElement> maplikeTypeElements;
+    /** Classification of declared types by their erased type elements, as subtype checks are expensive. */
+    private final Map<Element, TypeCategory> typeCategories = new HashMap<>();
+    /** Included component types inherited from packages, as {@link SharedType} on package-info is read once per package. */
+    private final Map<PackageElement, Set<SharedType.ComponentType>> packageIncludes = new HashMap<>();
+    /** Null if incremental processing is disabled. */
+    @Getter @Nullable
+    private final TypeDefCache typeDefCache;
+    /** Null if metrics are disabled. */
+    @Getter @Nullable
+    private final ProcessingMetrics metrics;
+    @Getter
+    private boolean errorReported;
+    @Nullable
+    private ForkJoinPool forkJoinPool;
+    /** Annotated types, as originating elements of aggregated output files. */
+    private final List<Element> originatingElements = new ArrayList<>();
 
     public Context(ProcessingEnvironment processingEnv, Props props) {
         this.processingEnv = processingEnv;
         this.props = props;
         types = processingEnv.getTypeUtils();
         elements = processingEnv.getElementUtils();
-        trees = Trees.instance(processingEnv);
-        arraylikeTypes = props.getArraylikeTypeQualifiedNames().stream()
-                .map(qualifiedName -> types.erasure(elements.getTypeElement(qualifiedName).asType()))
-                .collect(Collectors.toSet());
+        trees = createTrees(processingEnv);
+        ignoredTypes = typeElements(props.getIgnoredTypeQualifiedNames());
+        arraylikeTypes = erasedTypes(props.getArraylikeTypeQualifiedNames());
+        maplikeTypes = erasedTypes(props.getMaplikeTypeQualifiedNames());
+        maplikeTypeElements = typeElements(props.getMaplikeTypeQualifiedNames());
+        metrics = props.isMetricsEnabled() ? new ProcessingMetrics() : null;
+        if (trees == null) {
+            warning("Compiler Tree API is not available from processing environment %s. Enum values are read from class files.",
+                processingEnv.getClass().getName());
+            if (props.isIncrementalEnabled()) {
+                warning("Property 'sharedtype.incremental.enabled' is ignored, as incremental processing requires the compiler Tree API.");
+            }
+        }
+        typeDefCache = props.isIncrementalEnabled() && trees != null ? new TypeDefCache(this) : null;
     }
 
     // TODO: optimize by remove varargs
@@ -53,28 +100,258 @@ public final class Context {
         log(Diagnostic.Kind.WARNING, message, objects);
     }
     public void error(String message, Object... objects) {
+        errorReported = true;
         log(Diagnostic.Kind.ERROR, message, objects);
     }
 
     public boolean isArraylike(TypeMirror typeMirror) {
-        for (TypeMirror toArrayType : arraylikeTypes) {
-            if (types.isSubtype(types.erasure(typeMirror), toArrayType)) {
-                return true;
-            }
-        }
-        return false;
+        return categorize(typeMirror) == TypeCategory.ARRAY_LIKE;
+    }
+
+    public boolean isMaplike(TypeMirror typeMirror) {
+        return categorize(typeMirror) == TypeCategory.MAP_LIKE;
+    }
+
+    /**
+     * @return true if the type is one of the configured map-like types itself, not a subtype of them.
+     */
+    public boolean isPredefinedMaplike(TypeElement typeElement) {
+        return maplikeTypeElements.contains(typeElement);
     }
 
     public boolean isTypeIgnored(TypeElement typeElement) {
-        boolean ignored = typeElement.getAnnotation(SharedType.Ignore.class) != null;
-        return ignored || props.getIgnoredTypeQualifiedNames().contains(typeElement.getQualifiedName().toString());
+        return ignoredTypes.contains(typeElement) || typeElement.getAnnotation(SharedType.Ignore.class) != null;
+    }
+
+    /**
+     * @return config of the type, with values not specified on the type inherited from its package.
+     */
+    public Config getConfig(TypeElement typeElement) {
+        return Config.of(typeElement, getInheritedIncludes(typeElement));
+    }
+
+    /**
+     * @return included component types specified on the package of the type, or default values.
+     */
+    Set<SharedType.ComponentType> getInheritedIncludes(TypeElement typeElement) {
+        PackageElement packageElement = elements.getPackageOf(typeElement);
+        if (packageElement == null) {
+            return Config.DEFAULT_INCLUDES;
+        }
+        Set<SharedType.ComponentType> includes = packageIncludes.get(packageElement);
+        if (includes == null) {
+            includes = Config.packageIncludes(packageElement);
+            packageIncludes.put(packageElement, includes);
+        }
+        return includes;
+    }
+
+    public boolean isParallel() {
+        return props.getParallelism() > 1;
+    }
+
+    /**
+     * Pool for stages that support parallel execution, created on first use.
+     * Tasks must not call javac APIs that are not thread-safe, e.g. type parsing.
+     */
+    public ForkJoinPool getForkJoinPool() {
+        if (forkJoinPool == null) {
+            forkJoinPool = new ForkJoinPool(props.getParallelism());
+        }
+        return forkJoinPool;
+    }
+
+    /**
+     * Release resources after processing.
+     */
+    public void close() {
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
+        }
     }
 
+    public void addOriginatingElement(Element element) {
+        originatingElements.add(element);
+    }
+
+    /**
+     * Create an output file aggregated from all annotated types, which are passed as originating elements.
+     */
     public FileObject createSourceOutput(String filename) throws IOException {
-        return processingEnv.getFiler().createResource(StandardLocation.SOURCE_OUTPUT, "", filename);
+        return createResource(StandardLocation.SOURCE_OUTPUT, filename, originatingElements.toArray(new Element[0]));
+    }
+
+    public FileObject createClassOutput(String filename, Element... originatingElements) throws IOException {
+        return createResource(StandardLocation.CLASS_OUTPUT, filename, originatingElements);
+    }
+
+    /**
+     * Write an output file aggregated from all annotated types, unless the existing file has the same content.
+     *
+     * @see #createSourceOutput(String)
+     */
+    public void writeSourceOutput(String filename, byte[] content) throws IOException {
+        writeResource(StandardLocation.SOURCE_OUTPUT, filename, content, originatingElements.toArray(new Element[0]));
+    }
+
+    /**
+     * Write a class output file aggregated from all annotated types, unless the existing file has the same content.
+     */
+    public void writeAggregatedClassOutput(String filename, byte[] content) throws IOException {
+        writeResource(StandardLocation.CLASS_OUTPUT, filename, content, originatingElements.toArray(new Element[0]));
+    }
+
+    /**
+     * Write a class output file, unless the existing file has the same content.
+     */
+    public void writeClassOutput(String filename, byte[] content, Element... originatingElements) throws IOException {
+        writeResource(StandardLocation.CLASS_OUTPUT, filename, content, originatingElements);
+    }
+
+    /**
+     * An unchanged file is not written again, so that its timestamp is kept, and downstream tools watching it do not rebuild.
+     */
+    private void writeResource(StandardLocation location, String filename, byte[] content, Element... originatingElements) throws IOException {
+        if (hasContent(location, filename, content)) {
+            if (metrics != null) {
+                metrics.addCounter("Context.unchangedOutputFiles", 1);
+            }
+            return;
+        }
+        FileObject file = createResource(location, filename, originatingElements);
+        try (OutputStream outputStream = file.openOutputStream()) {
+            outputStream.write(content);
+        }
+    }
+
+    private boolean hasContent(StandardLocation location, String filename, byte[] content) {
+        try {
+            FileObject file = processingEnv.getFiler().getResource(location, "", filename);
+            try (InputStream inputStream = file.openInputStream()) {
+                byte[] buffer = new byte[8192];
+                int offset = 0;
+                int n;
+                while ((n = inputStream.read(buffer)) != -1) {
+                    if (offset + n > content.length) {
+                        return false;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        if (buffer[i] != content[offset + i]) {
+                            return false;
+                        }
+                    }
+                    offset += n;
+                }
+                return offset == content.length;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return false; // absent or not readable, write it
+        }
+    }
+
+    private FileObject createResource(StandardLocation location, String filename, Element... originatingElements) throws IOException {
+        FileObject file = processingEnv.getFiler().createResource(location, "", filename, originatingElements);
+        if (metrics != null) {
+            metrics.recordOutputFile(file);
+        }
+        return file;
+    }
+
+    /**
+     * {@link Trees} only accepts javac's own processing environment, while build tools may wrap it,
+     * e.g. Gradle's incremental annotation processing. A wrapped environment is unwrapped via its "delegate" field if there is one.
+     *
+     * @return null if the Tree API is not available.
+     */
+    @Nullable
+    private static Trees createTrees(ProcessingEnvironment processingEnv) {
+        ProcessingEnvironment env = processingEnv;
+        for (int i = 0; i < MAX_UNWRAP_DEPTH && env != null; i++) {
+            try {
+                return Trees.instance(env);
+            } catch (IllegalArgumentException e) {
+                env = delegateOf(env);
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static ProcessingEnvironment delegateOf(ProcessingEnvironment processingEnv) {
+        for (Class<?> clazz = processingEnv.getClass(); clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            try {
+                Field field = clazz.getDeclaredField("delegate");
+                field.setAccessible(true);
+                Object delegate = field.get(processingEnv);
+                return delegate instanceof ProcessingEnvironment ? (ProcessingEnvironment) delegate : null;
+            } catch (NoSuchFieldException e) {
+                // look up in the superclass
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Types not found are skipped, e.g. java.lang.Record before Java 16, as they cannot be referenced.
+     */
+    private Set<TypeElement> typeElements(Set<String> qualifiedNames) {
+        Set<TypeElement> typeElements = Collections.newSetFromMap(new IdentityHashMap<>(qualifiedNames.size() * 2));
+        for (String qualifiedName : qualifiedNames) {
+            TypeElement typeElement = elements.getTypeElement(qualifiedName);
+            if (typeElement != null) {
+                typeElements.add(typeElement);
+            }
+        }
+        return typeElements;
+    }
+
+    private Set<TypeMirror> erasedTypes(Set<String> qualifiedNames) {
+        return qualifiedNames.stream()
+                .map(qualifiedName -> types.erasure(elements.getTypeElement(qualifiedName).asType()))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Declared types are categorized once per type element, other types e.g. type variables are checked each time.
+     */
+    private TypeCategory categorize(TypeMirror typeMirror) {
+        if (typeMirror.getKind() != TypeKind.DECLARED) {
+            return doCategorize(typeMirror);
+        }
+        Element element = ((DeclaredType) typeMirror).asElement();
+        TypeCategory category = typeCategories.get(element);
+        if (category == null) {
+            category = doCategorize(typeMirror);
+            typeCategories.put(element, category);
+        }
+        return category;
+    }
+
+    private TypeCategory doCategorize(TypeMirror typeMirror) {
+        TypeMirror erasure = types.erasure(typeMirror);
+        for (TypeMirror arraylikeType : arraylikeTypes) {
+            if (types.isSubtype(erasure, arraylikeType)) {
+                return TypeCategory.ARRAY_LIKE;
+            }
+        }
+        for (TypeMirror maplikeType : maplikeTypes) {
+            if (types.isSubtype(erasure, maplikeType)) {
+                return TypeCategory.MAP_LIKE;
+            }
+        }
+        return TypeCategory.PLAIN;
     }
 
     private void log(Diagnostic.Kind level, String message, Object... objects) {
         processingEnv.getMessager().printMessage(level, String.format("[ST] %s", String.format(message, objects)));
     }
+
+    private enum TypeCategory {
+        ARRAY_LIKE,
+        MAP_LIKE,
+        PLAIN,
+    }
 }
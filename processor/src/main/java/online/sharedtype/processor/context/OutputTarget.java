@@ -8,6 +8,8 @@ public enum OutputTarget {
     CONSOLE,
     /** Write metadata to Java serialized file. Used for integration test. */
     JAVA_SERIALIZED,
+    /** Write metadata of all types to a single compact binary file, readable by {@link online.sharedtype.processor.domain.TypeDefBinaryReader}. */
+    BINARY,
     TYPESCRIPT,
     GO,
     RUST,
@@ -0,0 +1,106 @@
+package online.sharedtype.processor.context;
+
+import javax.tools.FileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Timing and counters of processing stages, written as a JSON report after processing.
+ * Stages are recorded by decorators of the stage components, which are only created when metrics are enabled.
+ *
+ * @see Props#isMetricsEnabled()
+ * @author Cause Chung
+ */
+public final class ProcessingMetrics {
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+    private final List<FileObject> outputFiles = new ArrayList<>();
+
+    ProcessingMetrics() {
+    }
+
+    public void recordStage(String name, long nanos) {
+        Stage stage = stages.get(name);
+        if (stage == null) {
+            stage = new Stage();
+            stages.put(name, stage);
+        }
+        stage.calls++;
+        stage.nanos += nanos;
+    }
+
+    public void addCounter(String name, long delta) {
+        Long value = counters.get(name);
+        counters.put(name, value == null ? delta : value + delta);
+    }
+
+    void recordOutputFile(FileObject file) {
+        outputFiles.add(file);
+    }
+
+    /**
+     * @return number of output files created so far, used as the start index of {@link #outputBytesSince(int)}.
+     */
+    public int outputFileCount() {
+        return outputFiles.size();
+    }
+
+    /**
+     * @return total size of output files created since the given index, files must have been closed.
+     */
+    public long outputBytesSince(int fromIndex) throws IOException {
+        return outputBytes(fromIndex, outputFiles.size());
+    }
+
+    /**
+     * @return total size of output files created in the given range of indices, files must have been closed.
+     */
+    public long outputBytes(int fromIndex, int toIndex) throws IOException {
+        long bytes = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            URI uri = outputFiles.get(i).toUri();
+            if ("file".equals(uri.getScheme())) {
+                bytes += Files.size(Paths.get(uri));
+            }
+        }
+        return bytes;
+    }
+
+    public void writeJson(Writer writer) throws IOException {
+        StringBuilder sb = new StringBuilder(256 + stages.size() * 64 + counters.size() * 48);
+        sb.append("{\n  \"stages\": [");
+        boolean first = true;
+        for (Map.Entry<String, Stage> entry : stages.entrySet()) {
+            sb.append(first ? "\n" : ",\n");
+            sb.append("    {\"name\": \"").append(entry.getKey())
+                .append("\", \"calls\": ").append(entry.getValue().calls)
+                .append(", \"millis\": ").append(String.format(Locale.ROOT, "%.3f", entry.getValue().nanos / 1_000_000.0))
+                .append('}');
+            first = false;
+        }
+        sb.append(first ? "],\n" : "\n  ],\n");
+        sb.append("  \"counters\": {");
+        first = true;
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            sb.append(first ? "\n" : ",\n");
+            sb.append("    \"").append(entry.getKey()).append("\": ").append(entry.getValue());
+            first = false;
+        }
+        sb.append(first ? "}\n" : "\n  }\n");
+        sb.append("}\n");
+        writer.write(sb.toString());
+    }
+
+    private static final class Stage {
+        long calls;
+        long nanos;
+    }
+}
@@ -23,12 +23,37 @@ public final class Props {
     private final Set<String> arraylikeTypeQualifiedNames;
     private final Set<String> maplikeTypeQualifiedNames;
     private final Set<String> ignoredTypeQualifiedNames;
+    private final int resolutionMaxDepth;
+    private final Set<String> resolutionPackages;
+    private final boolean resolutionSourceOnly;
+    private final int parallelism;
+    private final boolean incrementalEnabled;
+    private final String incrementalCacheFileName;
+    private final boolean metricsEnabled;
+    private final String metricsOutputFileName;
+    private final String binaryOutputFileName;
 
     @Builder(access = AccessLevel.PACKAGE)
     @Getter
     public static final class Typescript {
         private final String outputFileName;
+        private final OutputLayout outputLayout;
         private final char interfacePropertyDelimiter;
         private final String javaObjectMapType;
+        private final RendererType rendererType;
+
+        public enum RendererType {
+            /** Render via Mustache templates. */
+            MUSTACHE,
+            /** Write directly to output, with the same result as {@link #MUSTACHE}. */
+            STREAMING,
+        }
+
+        public enum OutputLayout {
+            /** All types in one file. */
+            SINGLE_FILE,
+            /** One file per java package, importing types from other files. */
+            PER_PACKAGE,
+        }
     }
 }
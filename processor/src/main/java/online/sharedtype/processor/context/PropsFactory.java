@@ -42,10 +42,21 @@ public final class PropsFactory {
             .arraylikeTypeQualifiedNames(parseSet(properties.getProperty("sharedtype.array-like-types")))
             .maplikeTypeQualifiedNames(parseSet(properties.getProperty("sharedtype.map-like-types")))
             .ignoredTypeQualifiedNames(parseSet(properties.getProperty("sharedtype.ignored-types")))
+            .resolutionMaxDepth(parseMaxDepth(properties.getProperty("sharedtype.resolution.max-depth")))
+            .resolutionPackages(parseSet(properties.getProperty("sharedtype.resolution.packages")))
+            .resolutionSourceOnly(Boolean.parseBoolean(properties.getProperty("sharedtype.resolution.source-only")))
+            .parallelism(parseParallelism(properties.getProperty("sharedtype.parallelism")))
+            .incrementalEnabled(Boolean.parseBoolean(properties.getProperty("sharedtype.incremental.enabled")))
+            .incrementalCacheFileName(properties.getProperty("sharedtype.incremental.cache-file-name"))
+            .metricsEnabled(Boolean.parseBoolean(properties.getProperty("sharedtype.metrics.enabled")))
+            .metricsOutputFileName(properties.getProperty("sharedtype.metrics.output-file-name"))
+            .binaryOutputFileName(properties.getProperty("sharedtype.binary.output-file-name"))
             .typescript(Props.Typescript.builder()
                 .outputFileName(properties.getProperty("sharedtype.typescript.output-file-name"))
+                .outputLayout(Props.Typescript.OutputLayout.valueOf(properties.getProperty("sharedtype.typescript.output-layout").trim()))
                 .interfacePropertyDelimiter(properties.getProperty("sharedtype.typescript.interface-property-delimiter").charAt(0))
                 .javaObjectMapType(properties.getProperty("sharedtype.typescript.java-object-map-type"))
+                .rendererType(Props.Typescript.RendererType.valueOf(properties.getProperty("sharedtype.typescript.renderer").trim()))
                 .build())
             .build();
     }
@@ -73,6 +84,22 @@ public final class PropsFactory {
         return set;
     }
 
+    private static int parseMaxDepth(String value) {
+        int maxDepth = Integer.parseInt(value.trim());
+        if (maxDepth < -1) {
+            throw new IllegalArgumentException(String.format("Max depth must be -1 or greater, but got: %s", maxDepth));
+        }
+        return maxDepth;
+    }
+
+    private static int parseParallelism(String value) {
+        int parallelism = Integer.parseInt(value.trim());
+        if (parallelism < 0) {
+            throw new IllegalArgumentException(String.format("Parallelism must not be negative, but got: %s", parallelism));
+        }
+        return parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+    }
+
     @SuppressWarnings("unchecked")
     private static Class<? extends Annotation> parseAnnotationClass(String className) throws ClassNotFoundException {
         return (Class<? extends Annotation>) Class.forName(className);
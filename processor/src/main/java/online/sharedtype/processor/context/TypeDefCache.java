@@ -0,0 +1,428 @@
+package online.sharedtype.processor.context;
+
+import com.sun.source.util.TreePath;
+import lombok.Getter;
+import online.sharedtype.SharedType;
+import online.sharedtype.processor.domain.ArrayTypeInfo;
+import online.sharedtype.processor.domain.ConcreteTypeInfo;
+import online.sharedtype.processor.domain.Constants;
+import online.sharedtype.processor.domain.MapTypeInfo;
+import online.sharedtype.processor.domain.TypeDef;
+import online.sharedtype.processor.domain.TypeInfo;
+import online.sharedtype.processor.domain.TypeVariableInfo;
+import online.sharedtype.support.annotation.SideEffect;
+import online.sharedtype.support.annotation.VisibleForTesting;
+
+import javax.annotation.Nullable;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Persists parsed type definitions across compilations.
+ * <br>
+ * A {@link TypeDef} is keyed by its qualified name and a fingerprint of the content of the source file it is declared in.
+ * If the source file is unchanged in the next compilation, the cached {@link TypeDef} is reused instead of parsing the {@link TypeElement} again.
+ * Types without source files, e.g. from dependency jars, are not cached.
+ * <br>
+ * Parsing also depends on facts of other types, which may be declared in other files: whether a supertype or a referenced type is ignored,
+ * and whether a referenced type is array-like or map-like. These facts of supertypes and types of members are recorded with the entry,
+ * and checked again before the cached {@link TypeDef} is reused.
+ * <br>
+ * Referenced types that have their own type definitions are stored as unresolved,
+ * so that the resolver still walks through dependencies of a cached {@link TypeDef}.
+ * On loading, {@link ConcreteTypeInfo}s, {@link ArrayTypeInfo}s and {@link MapTypeInfo}s are replaced with instances in {@link TypeStore} to keep them unique.
+ *
+ * @see Props#isIncrementalEnabled()
+ * @author Cause Chung
+ */
+public final class TypeDefCache {
+    private static final int FORMAT_VERSION = 4;
+    private static final byte FACT_IGNORED = 1;
+    private static final byte FACT_ARRAY_LIKE = 1 << 1;
+    private static final byte FACT_MAP_LIKE = 1 << 2;
+    private static final byte FACT_NOT_FOUND = -1;
+    private static final Map<String, ConcreteTypeInfo> PRIMITIVES_BY_NAME = new HashMap<>(8);
+    static {
+        for (ConcreteTypeInfo typeInfo : Constants.PRIMITIVES.values()) {
+            PRIMITIVES_BY_NAME.put(typeInfo.qualifiedName(), typeInfo);
+        }
+    }
+
+    private final Context ctx;
+    private final int propsFingerprint;
+    /** Fingerprints by top-level types, as javac elements are unique per compilation. */
+    private final Map<TypeElement, Long> fingerprints = new HashMap<>();
+    private final Map<String, Entry> entries = new HashMap<>();
+    @Nullable
+    private Map<String, Entry> previousEntries;
+    @Getter
+    private int reusedCount;
+
+    TypeDefCache(Context ctx) {
+        this.ctx = ctx;
+        Props props = ctx.getProps();
+        this.propsFingerprint = Objects.hash(
+            props.getOptionalAnno().getName(),
+            props.getAccessorGetterPrefixes(),
+            props.getArraylikeTypeQualifiedNames(),
+            props.getMaplikeTypeQualifiedNames(),
+            props.getIgnoredTypeQualifiedNames(),
+            props.getResolutionMaxDepth(),
+            props.getResolutionPackages(),
+            props.isResolutionSourceOnly()
+        );
+    }
+
+    /**
+     * @return the type definition cached in previous compilation, or null if absent or the source file has changed.
+     */
+    @Nullable
+    public TypeDef get(TypeElement typeElement) {
+        Long fingerprint = fingerprint(typeElement);
+        if (fingerprint == null) {
+            return null;
+        }
+        String qualifiedName = typeElement.getQualifiedName().toString();
+        Entry entry = previousEntries().get(qualifiedName);
+        if (entry == null || entry.fingerprint != fingerprint || !dependencyFactsUnchanged(entry)) {
+            return null;
+        }
+        try {
+            TypeDef typeDef = deserialize(entry.data);
+            entries.put(qualifiedName, entry);
+            reusedCount++;
+            return typeDef;
+        } catch (IOException | ClassNotFoundException e) {
+            ctx.warning("Failed to read cached type definition of '%s', will parse again. %s", qualifiedName, e);
+            return null;
+        }
+    }
+
+    /**
+     * Add a newly parsed type definition, it will be written by {@link #save()}.
+     */
+    public void put(TypeElement typeElement, TypeDef typeDef) {
+        Long fingerprint = fingerprint(typeElement);
+        if (fingerprint != null) {
+            List<TypeElement> dependencies = dependencies(typeElement);
+            String[] dependencyNames = new String[dependencies.size()];
+            byte[] dependencyFacts = new byte[dependencies.size()];
+            for (int i = 0; i < dependencyNames.length; i++) {
+                TypeElement dependency = dependencies.get(i);
+                dependencyNames[i] = dependency.getQualifiedName().toString();
+                dependencyFacts[i] = facts(dependency);
+            }
+            entries.put(typeElement.getQualifiedName().toString(), new Entry(fingerprint, dependencyNames, dependencyFacts, typeDef));
+        }
+    }
+
+    /**
+     * Write type definitions used in this compilation to the cache file.
+     * Types not used in this compilation are dropped from the cache.
+     */
+    public void save() throws IOException {
+        FileObject file = ctx.createSourceOutput(ctx.getProps().getIncrementalCacheFileName());
+        try (OutputStream outputStream = file.openOutputStream()) {
+            write(outputStream);
+        }
+        ctx.info("Type definition cache saved, %d of %d type definitions reused from previous compilation.", reusedCount, entries.size());
+    }
+
+    @VisibleForTesting
+    void write(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(propsFingerprint);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            byte[] data = entry.data != null ? entry.data : serialize(entry.typeDef);
+            out.writeUTF(e.getKey());
+            out.writeLong(entry.fingerprint);
+            out.writeInt(entry.dependencyNames.length);
+            for (int i = 0; i < entry.dependencyNames.length; i++) {
+                out.writeUTF(entry.dependencyNames[i]);
+                out.writeByte(entry.dependencyFacts[i]);
+            }
+            out.writeInt(data.length);
+            out.write(data);
+        }
+        out.flush();
+    }
+
+    @VisibleForTesting
+    void read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        Map<String, Entry> map = new HashMap<>();
+        if (in.readInt() != FORMAT_VERSION || in.readInt() != propsFingerprint) {
+            ctx.info("Type definition cache is outdated, all types will be parsed.");
+            previousEntries = map;
+            return;
+        }
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String qualifiedName = in.readUTF();
+            long fingerprint = in.readLong();
+            int dependencyCount = in.readInt();
+            String[] dependencyNames = new String[dependencyCount];
+            byte[] dependencyFacts = new byte[dependencyCount];
+            for (int j = 0; j < dependencyCount; j++) {
+                dependencyNames[j] = in.readUTF();
+                dependencyFacts[j] = in.readByte();
+            }
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            map.put(qualifiedName, new Entry(fingerprint, dependencyNames, dependencyFacts, data));
+        }
+        previousEntries = map;
+    }
+
+    private Map<String, Entry> previousEntries() {
+        if (previousEntries == null) {
+            previousEntries = new HashMap<>();
+            try {
+                FileObject file = ctx.getProcessingEnv().getFiler().getResource(StandardLocation.SOURCE_OUTPUT, "", ctx.getProps().getIncrementalCacheFileName());
+                try (InputStream inputStream = file.openInputStream()) {
+                    read(inputStream);
+                }
+            } catch (FileNotFoundException | NoSuchFileException e) {
+                ctx.info("Type definition cache not found, all types will be parsed.");
+            } catch (IOException e) {
+                ctx.warning("Failed to read type definition cache, all types will be parsed. %s", e);
+            }
+        }
+        return previousEntries;
+    }
+
+    @Nullable
+    private Long fingerprint(TypeElement typeElement) {
+        TypeElement topLevelElement = typeElement;
+        Element enclosingElement = typeElement.getEnclosingElement();
+        while (enclosingElement instanceof TypeElement) {
+            topLevelElement = (TypeElement) enclosingElement;
+            enclosingElement = enclosingElement.getEnclosingElement();
+        }
+        if (fingerprints.containsKey(topLevelElement)) {
+            return fingerprints.get(topLevelElement);
+        }
+        Long fingerprint = null;
+        TreePath path = ctx.getTrees().getPath(topLevelElement);
+        if (path != null) {
+            try {
+                fingerprint = hash(path.getCompilationUnit().getSourceFile().getCharContent(true), ctx.getInheritedIncludes(topLevelElement));
+            } catch (IOException e) {
+                ctx.warning("Failed to read source of '%s', it will not be cached. %s", topLevelElement.getQualifiedName().toString(), e);
+            }
+        }
+        fingerprints.put(topLevelElement, fingerprint);
+        return fingerprint;
+    }
+
+    private boolean dependencyFactsUnchanged(Entry entry) {
+        Elements elements = ctx.getProcessingEnv().getElementUtils();
+        for (int i = 0; i < entry.dependencyNames.length; i++) {
+            TypeElement dependency = elements.getTypeElement(entry.dependencyNames[i]);
+            byte facts = dependency == null ? FACT_NOT_FOUND : facts(dependency);
+            if (facts != entry.dependencyFacts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Supertypes and types of fields and methods, including type arguments and array components.
+     * This is a superset of types checked by parsers, as components are selected by the parser.
+     */
+    private static List<TypeElement> dependencies(TypeElement typeElement) {
+        Set<TypeElement> dependencies = new LinkedHashSet<>();
+        addDependencies(typeElement.getSuperclass(), dependencies);
+        for (TypeMirror interfaceType : typeElement.getInterfaces()) {
+            addDependencies(interfaceType, dependencies);
+        }
+        for (Element member : typeElement.getEnclosedElements()) {
+            if (member instanceof VariableElement) {
+                addDependencies(member.asType(), dependencies);
+            } else if (member instanceof ExecutableElement) {
+                addDependencies(((ExecutableElement) member).getReturnType(), dependencies);
+            }
+        }
+        dependencies.remove(typeElement);
+        return new ArrayList<>(dependencies);
+    }
+
+    private static void addDependencies(@Nullable TypeMirror typeMirror, @SideEffect Set<TypeElement> dependencies) {
+        if (typeMirror == null) {
+            return;
+        }
+        TypeKind kind = typeMirror.getKind();
+        if (kind == TypeKind.DECLARED) {
+            DeclaredType declaredType = (DeclaredType) typeMirror;
+            dependencies.add((TypeElement) declaredType.asElement());
+            for (TypeMirror typeArg : declaredType.getTypeArguments()) {
+                addDependencies(typeArg, dependencies);
+            }
+        } else if (kind == TypeKind.ARRAY) {
+            addDependencies(((ArrayType) typeMirror).getComponentType(), dependencies);
+        }
+    }
+
+    private byte facts(TypeElement typeElement) {
+        TypeMirror type = typeElement.asType();
+        int facts = ctx.isTypeIgnored(typeElement) ? FACT_IGNORED : 0;
+        if (ctx.isArraylike(type)) {
+            facts |= FACT_ARRAY_LIKE;
+        } else if (ctx.isMaplike(type)) {
+            facts |= FACT_MAP_LIKE;
+        }
+        return (byte) facts;
+    }
+
+    /**
+     * 64-bit FNV-1a of the source and defaults inherited from the package, which is declared in another file.
+     */
+    private static long hash(CharSequence content, Set<SharedType.ComponentType> inheritedIncludes) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < content.length(); i++) {
+            hash ^= content.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        for (SharedType.ComponentType componentType : inheritedIncludes) {
+            hash ^= componentType.ordinal() + 1;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private byte[] serialize(TypeDef typeDef) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new TypeDefOutputStream(bytes)) {
+            out.writeObject(typeDef);
+        }
+        return bytes.toByteArray();
+    }
+
+    private TypeDef deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new TypeDefInputStream(new ByteArrayInputStream(data))) {
+            return (TypeDef) in.readObject();
+        }
+    }
+
+    private static final class Entry {
+        final long fingerprint;
+        /** Qualified names of types whose facts the parsing depended on, with the facts at the time. */
+        final String[] dependencyNames;
+        final byte[] dependencyFacts;
+        /** Serialized form if read from the cache file. */
+        @Nullable final byte[] data;
+        /** Newly parsed, serialized on saving after types are resolved. */
+        @Nullable final TypeDef typeDef;
+
+        Entry(long fingerprint, String[] dependencyNames, byte[] dependencyFacts, byte[] data) {
+            this.fingerprint = fingerprint;
+            this.dependencyNames = dependencyNames;
+            this.dependencyFacts = dependencyFacts;
+            this.data = data;
+            this.typeDef = null;
+        }
+
+        Entry(long fingerprint, String[] dependencyNames, byte[] dependencyFacts, TypeDef typeDef) {
+            this.fingerprint = fingerprint;
+            this.dependencyNames = dependencyNames;
+            this.dependencyFacts = dependencyFacts;
+            this.data = null;
+            this.typeDef = typeDef;
+        }
+    }
+
+    private final class TypeDefOutputStream extends ObjectOutputStream {
+        TypeDefOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj instanceof ConcreteTypeInfo) {
+                ConcreteTypeInfo typeInfo = (ConcreteTypeInfo) obj;
+                if (typeInfo.shallowResolved() && ctx.getTypeStore().getTypeDef(typeInfo.qualifiedName()) != null) {
+                    return ConcreteTypeInfo.builder()
+                        .qualifiedName(typeInfo.qualifiedName())
+                        .simpleName(typeInfo.simpleName())
+                        .typeArgs(typeInfo.typeArgs())
+                        .resolved(false)
+                        .build();
+                }
+            }
+            return obj;
+        }
+    }
+
+    private final class TypeDefInputStream extends ObjectInputStream {
+        TypeDefInputStream(InputStream in) throws IOException {
+            super(in);
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+            if (obj instanceof ConcreteTypeInfo) {
+                ConcreteTypeInfo typeInfo = (ConcreteTypeInfo) obj;
+                ConcreteTypeInfo primitive = PRIMITIVES_BY_NAME.get(typeInfo.qualifiedName());
+                if (primitive != null) {
+                    return primitive;
+                }
+                if (typeInfo.typeArgs().isEmpty()) {
+                    TypeInfo storedTypeInfo = ctx.getTypeStore().getTypeInfo(typeInfo.qualifiedName());
+                    if (storedTypeInfo != null) {
+                        return storedTypeInfo;
+                    }
+                    ctx.getTypeStore().saveTypeInfo(typeInfo.qualifiedName(), typeInfo);
+                } else {
+                    ConcreteTypeInfo storedTypeInfo = ctx.getTypeStore().getGenericTypeInfo(typeInfo.qualifiedName(), typeInfo.typeArgs());
+                    if (storedTypeInfo != null) {
+                        return storedTypeInfo;
+                    }
+                    ctx.getTypeStore().saveGenericTypeInfo(typeInfo);
+                }
+            } else if (obj instanceof ArrayTypeInfo) {
+                return ctx.getTypeStore().internArrayTypeInfo(((ArrayTypeInfo) obj).component());
+            } else if (obj instanceof MapTypeInfo) {
+                MapTypeInfo mapTypeInfo = (MapTypeInfo) obj;
+                return ctx.getTypeStore().internMapTypeInfo(mapTypeInfo.keyType(), mapTypeInfo.valueType());
+            } else if (obj instanceof TypeVariableInfo) {
+                return ctx.getTypeStore().internTypeVariableInfo(((TypeVariableInfo) obj).name());
+            }
+            return obj;
+        }
+    }
+}
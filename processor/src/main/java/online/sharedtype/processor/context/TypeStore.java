@@ -1,12 +1,21 @@
 package online.sharedtype.processor.context;
 
+import lombok.Getter;
+import online.sharedtype.processor.domain.ArrayTypeInfo;
+import online.sharedtype.processor.domain.ConcreteTypeInfo;
+import online.sharedtype.processor.domain.MapTypeInfo;
 import online.sharedtype.processor.domain.TypeVariableInfo;
 import online.sharedtype.processor.parser.type.TypeInfoParser;
 import online.sharedtype.processor.domain.TypeDef;
 import online.sharedtype.processor.domain.TypeInfo;
 
 import javax.annotation.Nullable;
+import javax.lang.model.element.Name;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static online.sharedtype.processor.domain.Constants.PREDEFINED_OBJECT_TYPES;
@@ -17,6 +26,10 @@ import static online.sharedtype.processor.domain.Constants.PREDEFINED_OBJECT_TYP
  * A same type can be referenced at multiple places. Once resolved, it should be cached.
  * By design, a type should be represented by only one instance.
  * Note that generic types with different type arguments are different types.
+ * Generic types, arrays, maps and type variables are interned structurally, so that repeated usages share one instance and are resolved once.
+ * <br>
+ * Qualified names are mapped to dense integer ids once, type definitions and type infos are stored in id-indexed arrays.
+ * Lookups by {@link Name} are by identity, as javac interns names in a compilation, so that no string is created on repeated lookups.
  *
  * @see TypeVariableInfo
  * @see TypeInfoParser
@@ -24,45 +37,213 @@ import static online.sharedtype.processor.domain.Constants.PREDEFINED_OBJECT_TYP
  * @author Cause Chung
  */
 public final class TypeStore {
-    private final Map<String, Container> typeByQualifiedName = new HashMap<>();
+    private static final int INITIAL_CAPACITY = 256;
+    private final Map<Name, Integer> idsByName = new IdentityHashMap<>(INITIAL_CAPACITY);
+    private final Map<String, Integer> idsByQualifiedName = new HashMap<>(INITIAL_CAPACITY);
+    private TypeDef[] typeDefs = new TypeDef[INITIAL_CAPACITY];
+    private TypeInfo[] typeInfos = new TypeInfo[INITIAL_CAPACITY];
+    /** Ids of names that a type definition or type info has been saved for, as an id is also assigned on lookup by {@link Name}. */
+    private final BitSet savedIds = new BitSet(INITIAL_CAPACITY);
+    private final Map<GenericTypeKey, ConcreteTypeInfo> genericTypeInfos = new HashMap<>();
+    private final Map<TypeInfo, ArrayTypeInfo> arrayTypeInfos = new IdentityHashMap<>();
+    private final Map<GenericTypeKey, MapTypeInfo> mapTypeInfos = new HashMap<>();
+    private final Map<String, TypeVariableInfo> typeVariableInfos = new HashMap<>();
+    @Getter
+    private int typeDefHitCount;
+    @Getter
+    private int typeDefMissCount;
+    @Getter
+    private int typeInfoHitCount;
+    @Getter
+    private int typeInfoMissCount;
 
     TypeStore() {
         PREDEFINED_OBJECT_TYPES.forEach(this::saveTypeInfo);
     }
 
     public void saveTypeDef(String qualifiedName, TypeDef typeDef) {
-        typeByQualifiedName.compute(qualifiedName, (k, v) -> {
-            Container c = v == null ? new Container() : v;
-            c.typeDef = typeDef;
-            return c;
-        });
+        int id = idOf(qualifiedName);
+        typeDefs[id] = typeDef;
+        savedIds.set(id);
+    }
+    public void saveTypeDef(Name qualifiedName, TypeDef typeDef) {
+        int id = idOf(qualifiedName);
+        typeDefs[id] = typeDef;
+        savedIds.set(id);
     }
     /**
      * Can only cache non-generic type.
      */
     public void saveTypeInfo(String qualifiedName, TypeInfo typeInfo) {
-        typeByQualifiedName.compute(qualifiedName, (k, v) -> {
-            Container c = v == null ? new Container() : v;
-            c.typeInfo = typeInfo;
-            return c;
-        });
+        int id = idOf(qualifiedName);
+        typeInfos[id] = typeInfo;
+        savedIds.set(id);
+    }
+    public void saveTypeInfo(Name qualifiedName, TypeInfo typeInfo) {
+        int id = idOf(qualifiedName);
+        typeInfos[id] = typeInfo;
+        savedIds.set(id);
     }
 
     public TypeDef getTypeDef(String qualifiedName) {
-        Container container = typeByQualifiedName.get(qualifiedName);
-        return container == null ? null : container.typeDef;
+        Integer id = idsByQualifiedName.get(qualifiedName);
+        return countTypeDef(id == null ? null : typeDefs[id]);
+    }
+    /**
+     * An id is assigned to the name on first lookup, so that a subsequent save does not convert the name again.
+     */
+    public TypeDef getTypeDef(Name qualifiedName) {
+        int id = idOf(qualifiedName);
+        return countTypeDef(typeDefs[id]);
     }
     public TypeInfo getTypeInfo(String qualifiedName) {
-        Container container = typeByQualifiedName.get(qualifiedName);
-        return container == null ? null : container.typeInfo;
+        Integer id = idsByQualifiedName.get(qualifiedName);
+        return countTypeInfo(id == null ? null : typeInfos[id]);
+    }
+    public TypeInfo getTypeInfo(Name qualifiedName) {
+        int id = idOf(qualifiedName);
+        return countTypeInfo(typeInfos[id]);
     }
 
+    /**
+     * @param typeArgs interned type arguments, compared by identity.
+     * @return the interned generic type, or null if not seen before.
+     */
+    @Nullable
+    public ConcreteTypeInfo getGenericTypeInfo(String qualifiedName, List<? extends TypeInfo> typeArgs) {
+        Integer id = idsByQualifiedName.get(qualifiedName);
+        return id == null ? null : genericTypeInfos.get(new GenericTypeKey(id, typeArgs));
+    }
+    @Nullable
+    public ConcreteTypeInfo getGenericTypeInfo(Name qualifiedName, List<? extends TypeInfo> typeArgs) {
+        return genericTypeInfos.get(new GenericTypeKey(idOf(qualifiedName), typeArgs));
+    }
+    public void saveGenericTypeInfo(ConcreteTypeInfo typeInfo) {
+        genericTypeInfos.put(new GenericTypeKey(idOf(typeInfo.qualifiedName()), typeInfo.typeArgs()), typeInfo);
+    }
+
+    /**
+     * @param component interned component type.
+     */
+    public ArrayTypeInfo internArrayTypeInfo(TypeInfo component) {
+        ArrayTypeInfo arrayTypeInfo = arrayTypeInfos.get(component);
+        if (arrayTypeInfo == null) {
+            arrayTypeInfo = new ArrayTypeInfo(component);
+            arrayTypeInfos.put(component, arrayTypeInfo);
+        }
+        return arrayTypeInfo;
+    }
+
+    /**
+     * @param keyType interned key type.
+     * @param valueType interned value type.
+     */
+    public MapTypeInfo internMapTypeInfo(TypeInfo keyType, TypeInfo valueType) {
+        GenericTypeKey key = new GenericTypeKey(-1, Arrays.asList(keyType, valueType));
+        MapTypeInfo mapTypeInfo = mapTypeInfos.get(key);
+        if (mapTypeInfo == null) {
+            mapTypeInfo = new MapTypeInfo(keyType, valueType);
+            mapTypeInfos.put(key, mapTypeInfo);
+        }
+        return mapTypeInfo;
+    }
+
+    public TypeVariableInfo internTypeVariableInfo(String name) {
+        TypeVariableInfo typeVariableInfo = typeVariableInfos.get(name);
+        if (typeVariableInfo == null) {
+            typeVariableInfo = TypeVariableInfo.builder().name(name).build();
+            typeVariableInfos.put(name, typeVariableInfo);
+        }
+        return typeVariableInfo;
+    }
+
+    /**
+     * @return true if a type definition or type info has been saved for the name, a lookup alone does not count.
+     */
     public boolean contains(String qualifiedName) {
-        return typeByQualifiedName.containsKey(qualifiedName);
+        Integer id = idsByQualifiedName.get(qualifiedName);
+        return id != null && savedIds.get(id);
+    }
+    public boolean contains(Name qualifiedName) {
+        return savedIds.get(idOf(qualifiedName));
+    }
+
+    private TypeDef countTypeDef(@Nullable TypeDef typeDef) {
+        if (typeDef == null) {
+            typeDefMissCount++;
+        } else {
+            typeDefHitCount++;
+        }
+        return typeDef;
     }
 
-    private static final class Container{
-        @Nullable TypeDef typeDef;
-        @Nullable TypeInfo typeInfo;
+    private TypeInfo countTypeInfo(@Nullable TypeInfo typeInfo) {
+        if (typeInfo == null) {
+            typeInfoMissCount++;
+        } else {
+            typeInfoHitCount++;
+        }
+        return typeInfo;
+    }
+
+    private int idOf(Name qualifiedName) {
+        Integer id = idsByName.get(qualifiedName);
+        if (id == null) {
+            id = idOf(qualifiedName.toString());
+            idsByName.put(qualifiedName, id);
+        }
+        return id;
+    }
+
+    private int idOf(String qualifiedName) {
+        Integer id = idsByQualifiedName.get(qualifiedName);
+        if (id == null) {
+            id = idsByQualifiedName.size();
+            idsByQualifiedName.put(qualifiedName, id);
+            if (id == typeDefs.length) {
+                typeDefs = Arrays.copyOf(typeDefs, id * 2);
+                typeInfos = Arrays.copyOf(typeInfos, id * 2);
+            }
+        }
+        return id;
+    }
+
+    /** Keyed by the id of the qualified name, -1 for maps. Type arguments are compared by identity, as they are interned. */
+    private static final class GenericTypeKey {
+        final int id;
+        final List<? extends TypeInfo> typeArgs;
+        final int hash;
+
+        GenericTypeKey(int id, List<? extends TypeInfo> typeArgs) {
+            this.id = id;
+            this.typeArgs = typeArgs;
+            int h = id;
+            for (TypeInfo typeArg : typeArgs) {
+                h = 31 * h + System.identityHashCode(typeArg);
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GenericTypeKey)) {
+                return false;
+            }
+            GenericTypeKey other = (GenericTypeKey) o;
+            if (hash != other.hash || id != other.id || typeArgs.size() != other.typeArgs.size()) {
+                return false;
+            }
+            for (int i = 0; i < typeArgs.size(); i++) {
+                if (typeArgs.get(i) != other.typeArgs.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
     }
 }
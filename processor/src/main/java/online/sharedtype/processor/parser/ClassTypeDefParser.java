@@ -28,6 +28,7 @@ import javax.lang.model.util.Types;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,11 +42,13 @@ final class ClassTypeDefParser implements TypeDefParser {
     private final Context ctx;
     private final Types types;
     private final TypeInfoParser typeInfoParser;
+    private final GetterPrefixMatcher getterPrefixMatcher;
 
     ClassTypeDefParser(Context ctx, TypeInfoParser typeInfoParser) {
         this.ctx = ctx;
         this.types = ctx.getProcessingEnv().getTypeUtils();
         this.typeInfoParser = typeInfoParser;
+        this.getterPrefixMatcher = new GetterPrefixMatcher(ctx.getProps().getAccessorGetterPrefixes());
     }
 
     @Override
@@ -53,7 +56,7 @@ final class ClassTypeDefParser implements TypeDefParser {
         if (!isValidClassTypeElement(typeElement)) {
             return null;
         }
-        Config config = new Config(typeElement);
+        Config config = ctx.getConfig(typeElement);
 
         ClassDef.ClassDefBuilder builder = ClassDef.builder().qualifiedName(config.getQualifiedName()).simpleName(config.getName());
         builder.typeVariables(parseTypeVariables(typeElement));
@@ -118,36 +121,78 @@ final class ClassTypeDefParser implements TypeDefParser {
         return fields;
     }
 
+    /**
+     * Enclosed elements are scanned once, collecting instance field names and candidate components.
+     * Candidates are then merged by name in declaration order, accessors are resolved against the complete set of field names,
+     * so that a fluent getter declared before its field is recognized.
+     * <br>
+     * For a record, accessors of record components are known without checking their names and types:
+     * they are skipped if fields are included, as their fields are the same components, otherwise they are components named as the methods.
+     */
     @VisibleForTesting
     List<Tuple<Element, String>> resolveComponents(TypeElement typeElement, Config config) {
         List<? extends Element> enclosedElements = typeElement.getEnclosedElements();
-        List<Tuple<Element, String>> res = new ArrayList<>(enclosedElements.size());
-        NamesOfTypes uniqueNamesOfTypes = new NamesOfTypes(enclosedElements.size(), typeElement);
         boolean includeAccessors = config.includes(SharedType.ComponentType.ACCESSORS);
         boolean includeFields = config.includes(SharedType.ComponentType.FIELDS);
 
-        Set<String> instanceFieldNames = enclosedElements.stream()
-            .filter(e -> e.getKind() == ElementKind.FIELD && !e.getModifiers().contains(Modifier.STATIC))
-            .map(e -> e.getSimpleName().toString())
-            .collect(Collectors.toSet());
+        Set<Element> recordAccessors = RecordAccessors.of(typeElement);
 
+        int size = enclosedElements.size();
+        Set<String> instanceFieldNames = new HashSet<>(size * 2);
+        Element[] candidates = new Element[size];
+        String[] candidateNames = new String[size];
+        boolean[] candidateRecordAccessors = new boolean[size];
+        int candidateCount = 0;
         for (Element enclosedElement : enclosedElements) {
+            String name;
+            if (enclosedElement.getKind() == ElementKind.FIELD && enclosedElement instanceof VariableElement) {
+                if (enclosedElement.getModifiers().contains(Modifier.STATIC)) {
+                    continue;
+                }
+                name = enclosedElement.getSimpleName().toString();
+                instanceFieldNames.add(name);
+                if (!includeFields) {
+                    continue;
+                }
+            } else if (includeAccessors && enclosedElement instanceof ExecutableElement) {
+                if (includeFields && recordAccessors.contains(enclosedElement)) {
+                    continue;
+                }
+                name = enclosedElement.getSimpleName().toString();
+            } else {
+                continue;
+            }
             if (enclosedElement.getAnnotation(SharedType.Ignore.class) != null) {
                 continue;
             }
+            candidates[candidateCount] = enclosedElement;
+            candidateNames[candidateCount] = name;
+            candidateRecordAccessors[candidateCount] = !recordAccessors.isEmpty() && recordAccessors.contains(enclosedElement);
+            candidateCount++;
+        }
 
-            TypeMirror type = enclosedElement.asType();
-            String name = enclosedElement.getSimpleName().toString();
+        List<Tuple<Element, String>> res = new ArrayList<>(candidateCount);
+        NamesOfTypes uniqueNamesOfTypes = new NamesOfTypes(candidateCount, typeElement);
+        for (int i = 0; i < candidateCount; i++) {
+            Element candidate = candidates[i];
+            String name = candidateNames[i];
 
-            if (includeFields && enclosedElement.getKind() == ElementKind.FIELD && enclosedElement instanceof VariableElement) {
-                VariableElement variableElem = (VariableElement) enclosedElement;
-                if (uniqueNamesOfTypes.contains(name, type) || !instanceFieldNames.contains(name)) {
+            if (candidate instanceof VariableElement) {
+                TypeMirror type = candidate.asType();
+                if (uniqueNamesOfTypes.contains(name, type)) {
                     continue;
                 }
-                res.add(Tuple.of(variableElem, name));
+                res.add(Tuple.of(candidate, name));
                 uniqueNamesOfTypes.add(name, type);
-            } else if (includeAccessors && enclosedElement instanceof ExecutableElement) {
-                ExecutableElement methodElem = (ExecutableElement) enclosedElement;
+            } else if (candidateRecordAccessors[i]) {
+                TypeMirror returnType = ((ExecutableElement) candidate).getReturnType();
+                if (uniqueNamesOfTypes.contains(name, returnType)) {
+                    continue;
+                }
+                res.add(Tuple.of(candidate, name));
+                uniqueNamesOfTypes.add(name, returnType);
+            } else {
+                ExecutableElement methodElem = (ExecutableElement) candidate;
                 boolean explicitAccessor = methodElem.getAnnotation(SharedType.Accessor.class) != null;
                 if (!isZeroArgNonstaticMethod(methodElem)) {
                     if (explicitAccessor) {
@@ -191,10 +236,9 @@ final class ClassTypeDefParser implements TypeDefParser {
         if (isFluentGetter) {
             return name;
         }
-        for (String accessorGetterPrefix : ctx.getProps().getAccessorGetterPrefixes()) {
-            if (name.startsWith(accessorGetterPrefix)) {
-                return Utils.substringAndUncapitalize(name, accessorGetterPrefix.length());
-            }
+        int prefixLength = getterPrefixMatcher.match(name);
+        if (prefixLength >= 0) {
+            return Utils.substringAndUncapitalize(name, prefixLength);
         }
         if (isExplicitAccessor) {
             return name;
@@ -202,6 +246,38 @@ final class ClassTypeDefParser implements TypeDefParser {
         return null;
     }
 
+    /**
+     * Getter prefixes in configured order, with their first characters to reject most names without comparing strings.
+     */
+    private static final class GetterPrefixMatcher {
+        private final String[] prefixes;
+        private final char[] firstChars;
+
+        GetterPrefixMatcher(Set<String> accessorGetterPrefixes) {
+            this.prefixes = accessorGetterPrefixes.toArray(new String[0]);
+            this.firstChars = new char[prefixes.length];
+            for (int i = 0; i < prefixes.length; i++) {
+                firstChars[i] = prefixes[i].charAt(0);
+            }
+        }
+
+        /**
+         * @return length of the first matching prefix, or -1 if none matches.
+         */
+        int match(String name) {
+            if (name.isEmpty()) {
+                return -1;
+            }
+            char first = name.charAt(0);
+            for (int i = 0; i < prefixes.length; i++) {
+                if (firstChars[i] == first && name.startsWith(prefixes[i])) {
+                    return prefixes[i].length();
+                }
+            }
+            return -1;
+        }
+    }
+
     private final class NamesOfTypes {
         private final TypeElement contextType;
         private final Map<String, TypeMirror> namesOfTypes;
@@ -217,7 +293,7 @@ final class ClassTypeDefParser implements TypeDefParser {
             if (type == null) {
                 return false;
             }
-            if (!types.isSameType(type, componentType)) {
+            if (type != componentType && !types.isSameType(type, componentType)) {
                 ctx.error("Type %s has conflicting components with same name '%s', because they have different types %s and %s, they cannot be merged.",
                     contextType, name, type, componentType);
             }
@@ -1,40 +1,61 @@
 package online.sharedtype.processor.parser;
 
 import lombok.RequiredArgsConstructor;
+import online.sharedtype.processor.context.TypeDefCache;
 import online.sharedtype.processor.domain.TypeDef;
 import online.sharedtype.processor.context.Context;
 import online.sharedtype.support.exception.SharedTypeInternalError;
 
+import javax.annotation.Nullable;
+import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
 import java.util.Map;
 
 /**
+ * Dispatch parsing by element kind. If incremental processing is enabled,
+ * type definitions are reused from previous compilation if their sources are unchanged.
  *
+ * @see TypeDefCache
  * @author Cause Chung
  */
 @RequiredArgsConstructor
 final class CompositeTypeDefParser implements TypeDefParser {
     private final Context ctx;
     private final Map<String, TypeDefParser> parsers;
+    /** Null if incremental processing is disabled. */
+    @Nullable
+    private final TypeDefCache typeDefCache;
 
     @Override
     public TypeDef parse(TypeElement typeElement) {
         if (ctx.isTypeIgnored(typeElement)) {
             return null;
         }
-        String qualifiedName = typeElement.getQualifiedName().toString();
+        Name qualifiedName = typeElement.getQualifiedName();
         TypeDef cachedDef = ctx.getTypeStore().getTypeDef(qualifiedName);
         if (cachedDef != null) {
             return cachedDef;
         }
-        ctx.info("Processing: " + typeElement.getQualifiedName());
+        TypeDef typeDef = typeDefCache == null ? null : typeDefCache.get(typeElement);
+        if (typeDef != null) {
+            ctx.info("Reusing from previous compilation: " + qualifiedName);
+        } else {
+            typeDef = doParse(typeElement, qualifiedName);
+        }
+        ctx.getTypeStore().saveTypeDef(qualifiedName, typeDef);
+        return typeDef;
+    }
+
+    private TypeDef doParse(TypeElement typeElement, Name qualifiedName) {
+        ctx.info("Processing: " + qualifiedName);
         TypeDefParser parser = parsers.get(typeElement.getKind().name());
         if (parser == null) {
             throw new SharedTypeInternalError(String.format("Unsupported element: %s, kind=%s", typeElement, typeElement.getKind()));
         }
-
         TypeDef typeDef = parser.parse(typeElement);
-        ctx.getTypeStore().saveTypeDef(qualifiedName, typeDef);
+        if (typeDef != null && typeDefCache != null) {
+            typeDefCache.put(typeElement, typeDef);
+        }
         return typeDef;
     }
 }
@@ -0,0 +1,637 @@
+package online.sharedtype.processor.parser;
+
+import online.sharedtype.support.exception.SharedTypeInternalError;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Constructor arguments of enum constants read from the bytecode of a compiled enum class,
+ * for enums from dependency jars whose source trees are not available.
+ * <br>
+ * The static initializer is interpreted with a simplified operand stack, only tracking constants pushed by
+ * {@code *const_*}, {@code bipush}, {@code sipush} and {@code ldc*} instructions. Enum constants are initialized at the beginning of
+ * the static initializer, interpretation stops at the first instruction not supported, e.g. a branch, which is kept as {@link #unsupportedOpcode()}.
+ * The synthetic name and ordinal arguments are excluded, consistent with constructor parameters of the enum element.
+ *
+ * @author Cause Chung
+ */
+final class EnumClassFile {
+    /** Argument value that is not a constant in bytecode, e.g. a reference to another enum constant. */
+    static final Object NON_CONSTANT = new Object();
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int SYNTHETIC_ENUM_ARG_COUNT = 2;
+    private static final String INIT = "<init>";
+    private static final String CLINIT = "<clinit>";
+
+    private final Map<String, List<Object>> constantArgs;
+    private final Map<String, Integer> fieldParameterIndices;
+    private final int unsupportedOpcode;
+
+    private EnumClassFile(Map<String, List<Object>> constantArgs, Map<String, Integer> fieldParameterIndices, int unsupportedOpcode) {
+        this.constantArgs = constantArgs;
+        this.fieldParameterIndices = fieldParameterIndices;
+        this.unsupportedOpcode = unsupportedOpcode;
+    }
+
+    /**
+     * @return constructor arguments of the enum constant, or null if its initialization is not found,
+     *         e.g. it is after the instruction that stopped interpretation, see {@link #unsupportedOpcode()}.
+     */
+    List<Object> constructorArgs(String enumConstantName) {
+        return constantArgs.get(enumConstantName);
+    }
+
+    /**
+     * @return opcode of the first instruction not supported in the static initializer, or -1 if all instructions were interpreted.
+     */
+    int unsupportedOpcode() {
+        return unsupportedOpcode;
+    }
+
+    /**
+     * @return index of the constructor parameter directly assigned to the field, or -1 if not found.
+     */
+    int fieldParameterIndex(String fieldName) {
+        Integer idx = fieldParameterIndices.get(fieldName);
+        return idx == null ? -1 : idx;
+    }
+
+    static EnumClassFile parse(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a class file.");
+            }
+            in.getShort(); // minor_version
+            in.getShort(); // major_version
+            ConstantPool cp = ConstantPool.read(in);
+            in.getShort(); // access_flags
+            String thisClass = cp.className(in.getShort() & 0xFFFF);
+            in.getShort(); // super_class
+            skip(in, (in.getShort() & 0xFFFF) * 2); // interfaces
+            int fieldCount = in.getShort() & 0xFFFF;
+            for (int i = 0; i < fieldCount; i++) {
+                in.getShort(); // access_flags
+                in.getShort(); // name_index
+                in.getShort(); // descriptor_index
+                skipAttributes(in);
+            }
+
+            Map<String, List<Object>> constantArgs = Collections.emptyMap();
+            int unsupportedOpcode = -1;
+            Map<String, Integer> fieldParameterIndices = new HashMap<>();
+            int methodCount = in.getShort() & 0xFFFF;
+            for (int i = 0; i < methodCount; i++) {
+                in.getShort(); // access_flags
+                String name = cp.utf8(in.getShort() & 0xFFFF);
+                String descriptor = cp.utf8(in.getShort() & 0xFFFF);
+                byte[] code = readCode(in, cp);
+                if (code == null) {
+                    continue;
+                }
+                if (CLINIT.equals(name)) {
+                    StaticInitInterpreter interpreter = new StaticInitInterpreter(cp, thisClass);
+                    constantArgs = interpreter.run(code);
+                    unsupportedOpcode = interpreter.unsupportedOpcode;
+                } else if (INIT.equals(name)) {
+                    collectFieldAssignments(code, cp, thisClass, descriptor, fieldParameterIndices);
+                }
+            }
+            return new EnumClassFile(constantArgs, fieldParameterIndices, unsupportedOpcode);
+        } catch (RuntimeException e) {
+            throw new SharedTypeInternalError("Failed to read enum class file.", e);
+        }
+    }
+
+    /** @return bytecode of the method, or null if it has no Code attribute. */
+    private static byte[] readCode(ByteBuffer in, ConstantPool cp) {
+        byte[] code = null;
+        int attributeCount = in.getShort() & 0xFFFF;
+        for (int i = 0; i < attributeCount; i++) {
+            String name = cp.utf8(in.getShort() & 0xFFFF);
+            int length = in.getInt();
+            if ("Code".equals(name)) {
+                int end = in.position() + length;
+                in.getShort(); // max_stack
+                in.getShort(); // max_locals
+                code = new byte[in.getInt()];
+                in.get(code);
+                in.position(end);
+            } else {
+                skip(in, length);
+            }
+        }
+        return code;
+    }
+
+    /**
+     * Finds fields assigned directly from constructor parameters, i.e. {@code aload_0, xload n, putfield}.
+     * Parameter names are not available without {@code -parameters} javac option, so fields are matched to parameters this way.
+     */
+    private static void collectFieldAssignments(byte[] code, ConstantPool cp, String thisClass, String descriptor,
+                                                Map<String, Integer> fieldParameterIndices) {
+        List<String> paramTypes = Descriptors.parameterTypes(descriptor);
+        int[] slotToParamIdx = new int[paramTypes.size() * 2 + 1];
+        Arrays.fill(slotToParamIdx, -1);
+        int slot = 1;
+        for (int i = 0; i < paramTypes.size(); i++) {
+            slotToParamIdx[slot] = i;
+            slot += Descriptors.slotSize(paramTypes.get(i));
+        }
+
+        int prevPc = -1;
+        int prevPrevPc = -1;
+        int pc = 0;
+        while (pc < code.length) {
+            int opcode = code[pc] & 0xFF;
+            if (opcode == Opcodes.PUTFIELD && prevPrevPc >= 0 && (code[prevPrevPc] & 0xFF) == Opcodes.ALOAD_0) {
+                int loadedSlot = loadedSlot(code, prevPc);
+                int cpIdx = u2(code, pc + 1);
+                if (loadedSlot > 0 && loadedSlot < slotToParamIdx.length && thisClass.equals(cp.memberOwner(cpIdx))) {
+                    int paramIdx = slotToParamIdx[loadedSlot] - SYNTHETIC_ENUM_ARG_COUNT;
+                    if (paramIdx >= 0) {
+                        fieldParameterIndices.putIfAbsent(cp.memberName(cpIdx), paramIdx);
+                    }
+                }
+            }
+            prevPrevPc = prevPc;
+            prevPc = pc;
+            pc += Opcodes.length(code, pc);
+        }
+    }
+
+    /** @return the local variable slot loaded by the instruction, or -1 if it is not a load. */
+    private static int loadedSlot(byte[] code, int pc) {
+        int opcode = code[pc] & 0xFF;
+        if (opcode >= Opcodes.ILOAD && opcode <= Opcodes.ALOAD) {
+            return code[pc + 1] & 0xFF;
+        } else if (opcode >= Opcodes.ILOAD_0 && opcode <= Opcodes.ALOAD_3) {
+            return (opcode - Opcodes.ILOAD_0) % 4;
+        } else if (opcode == Opcodes.WIDE && (code[pc + 1] & 0xFF) >= Opcodes.ILOAD && (code[pc + 1] & 0xFF) <= Opcodes.ALOAD) {
+            return u2(code, pc + 2);
+        }
+        return -1;
+    }
+
+    private static void skipAttributes(ByteBuffer in) {
+        int attributeCount = in.getShort() & 0xFFFF;
+        for (int i = 0; i < attributeCount; i++) {
+            in.getShort(); // attribute_name_index
+            skip(in, in.getInt());
+        }
+    }
+
+    private static void skip(ByteBuffer in, int length) {
+        in.position(in.position() + length);
+    }
+
+    static int u2(byte[] code, int pc) {
+        return ((code[pc] & 0xFF) << 8) | (code[pc + 1] & 0xFF);
+    }
+
+    static int s4(byte[] code, int pc) {
+        return ((code[pc] & 0xFF) << 24) | ((code[pc + 1] & 0xFF) << 16) | ((code[pc + 2] & 0xFF) << 8) | (code[pc + 3] & 0xFF);
+    }
+
+    /**
+     * Interprets enum constant initialization in the static initializer.
+     * An operand stack entry is a {@link Value}, an object being constructed is a {@link NewObject},
+     * so that the duplicated reference sees the arguments after the constructor call.
+     */
+    private static final class StaticInitInterpreter {
+        private final ConstantPool cp;
+        private final String thisClass;
+        private final List<Object> stack = new ArrayList<>();
+        private final Map<String, List<Object>> constantArgs = new HashMap<>();
+        private int unsupportedOpcode = -1;
+
+        StaticInitInterpreter(ConstantPool cp, String thisClass) {
+            this.cp = cp;
+            this.thisClass = thisClass;
+        }
+
+        Map<String, List<Object>> run(byte[] code) {
+            int pc = 0;
+            while (pc < code.length && step(code, pc)) {
+                pc += Opcodes.length(code, pc);
+            }
+            return constantArgs;
+        }
+
+        /** @return false if the instruction is not supported, interpretation then stops. */
+        private boolean step(byte[] code, int pc) {
+            int opcode = code[pc] & 0xFF;
+            if (opcode == Opcodes.NOP || opcode == Opcodes.CHECKCAST) {
+                return true;
+            } else if (opcode == Opcodes.ACONST_NULL) {
+                push(Value.of(null));
+            } else if (opcode >= Opcodes.ICONST_M1 && opcode <= Opcodes.ICONST_5) {
+                push(Value.of(opcode - Opcodes.ICONST_0));
+            } else if (opcode == Opcodes.LCONST_0 || opcode == Opcodes.LCONST_1) {
+                push(Value.of((long) (opcode - Opcodes.LCONST_0)));
+            } else if (opcode >= Opcodes.FCONST_0 && opcode <= Opcodes.FCONST_2) {
+                push(Value.of((float) (opcode - Opcodes.FCONST_0)));
+            } else if (opcode == Opcodes.DCONST_0 || opcode == Opcodes.DCONST_1) {
+                push(Value.of((double) (opcode - Opcodes.DCONST_0)));
+            } else if (opcode == Opcodes.BIPUSH) {
+                push(Value.of((int) code[pc + 1]));
+            } else if (opcode == Opcodes.SIPUSH) {
+                push(Value.of((int) (short) u2(code, pc + 1)));
+            } else if (opcode == Opcodes.LDC) {
+                push(cp.constant(code[pc + 1] & 0xFF));
+            } else if (opcode == Opcodes.LDC_W || opcode == Opcodes.LDC2_W) {
+                push(cp.constant(u2(code, pc + 1)));
+            } else if (opcode == Opcodes.DUP) {
+                push(peek());
+            } else if (opcode == Opcodes.POP) {
+                pop();
+            } else if (opcode == Opcodes.NEW) {
+                push(new NewObject());
+            } else if (opcode == Opcodes.GETSTATIC) {
+                push(Value.UNKNOWN);
+            } else if (opcode == Opcodes.PUTSTATIC) {
+                putStatic(u2(code, pc + 1), pop());
+            } else if (opcode == Opcodes.ANEWARRAY || opcode == Opcodes.NEWARRAY) {
+                pop();
+                push(Value.UNKNOWN);
+            } else if (opcode >= Opcodes.IASTORE && opcode <= Opcodes.SASTORE) {
+                pop();
+                pop();
+                pop();
+            } else if (opcode >= Opcodes.INVOKEVIRTUAL && opcode <= Opcodes.INVOKEDYNAMIC) {
+                invoke(opcode, u2(code, pc + 1));
+            } else if (opcode == Opcodes.RETURN) {
+                return false;
+            } else {
+                unsupportedOpcode = opcode;
+                return false;
+            }
+            return true;
+        }
+
+        private void invoke(int opcode, int cpIdx) {
+            String descriptor = cp.memberDescriptor(cpIdx);
+            List<String> paramTypes = Descriptors.parameterTypes(descriptor);
+            Object[] args = new Object[paramTypes.size()];
+            for (int i = args.length - 1; i >= 0; i--) {
+                args[i] = pop();
+            }
+            if (opcode == Opcodes.INVOKESTATIC && isBoxing(cpIdx, paramTypes) && args[0] instanceof Value) {
+                push(Value.of(Descriptors.convert(((Value) args[0]).value(), paramTypes.get(0))));
+                return;
+            }
+            if (opcode != Opcodes.INVOKESTATIC && opcode != Opcodes.INVOKEDYNAMIC) {
+                Object receiver = pop();
+                if (opcode == Opcodes.INVOKESPECIAL && receiver instanceof NewObject && INIT.equals(cp.memberName(cpIdx))) {
+                    ((NewObject) receiver).args = constructorArgs(args, paramTypes);
+                }
+            }
+            if (!"V".equals(Descriptors.returnType(descriptor))) {
+                push(Value.UNKNOWN);
+            }
+        }
+
+        /** A literal served to a boxed parameter is boxed by e.g. {@code Integer.valueOf(int)}. */
+        private boolean isBoxing(int cpIdx, List<String> paramTypes) {
+            return paramTypes.size() == 1 && paramTypes.get(0).length() == 1
+                && "valueOf".equals(cp.memberName(cpIdx)) && cp.memberOwner(cpIdx).startsWith("java/lang/");
+        }
+
+        private void putStatic(int cpIdx, Object value) {
+            if (value instanceof NewObject && ((NewObject) value).args != null && thisClass.equals(cp.memberOwner(cpIdx))) {
+                constantArgs.put(cp.memberName(cpIdx), ((NewObject) value).args);
+            }
+        }
+
+        private static List<Object> constructorArgs(Object[] args, List<String> paramTypes) {
+            if (args.length < SYNTHETIC_ENUM_ARG_COUNT) {
+                return null;
+            }
+            List<Object> res = new ArrayList<>(args.length - SYNTHETIC_ENUM_ARG_COUNT);
+            for (int i = SYNTHETIC_ENUM_ARG_COUNT; i < args.length; i++) {
+                Object arg = args[i];
+                res.add(arg instanceof Value ? Descriptors.convert(((Value) arg).value(), paramTypes.get(i)) : NON_CONSTANT);
+            }
+            return res;
+        }
+
+        private void push(Object value) {
+            stack.add(value);
+        }
+
+        private Object peek() {
+            return stack.get(stack.size() - 1);
+        }
+
+        private Object pop() {
+            return stack.remove(stack.size() - 1);
+        }
+    }
+
+    /** Reference to an object being constructed, arguments are set by the constructor call. */
+    private static final class NewObject {
+        private List<Object> args;
+    }
+
+    private static final class Value {
+        private static final Value UNKNOWN = new Value(false, null);
+        private final boolean known;
+        private final Object value;
+
+        private Value(boolean known, Object value) {
+            this.known = known;
+            this.value = value;
+        }
+
+        static Value of(Object value) {
+            return new Value(true, value);
+        }
+
+        Object value() {
+            return known ? value : NON_CONSTANT;
+        }
+    }
+
+    private static final class ConstantPool {
+        private static final int UTF8 = 1;
+        private static final int INTEGER = 3;
+        private static final int FLOAT = 4;
+        private static final int LONG = 5;
+        private static final int DOUBLE = 6;
+        private static final int CLASS = 7;
+        private static final int STRING = 8;
+        private static final int FIELD_REF = 9;
+        private static final int METHOD_REF = 10;
+        private static final int INTERFACE_METHOD_REF = 11;
+        private static final int NAME_AND_TYPE = 12;
+        private static final int METHOD_HANDLE = 15;
+        private static final int METHOD_TYPE = 16;
+        private static final int DYNAMIC = 17;
+        private static final int INVOKE_DYNAMIC = 18;
+        private static final int MODULE = 19;
+        private static final int PACKAGE = 20;
+
+        private final ByteBuffer buffer;
+        private final int[] offsets;
+        private final byte[] tags;
+        private final String[] utf8s;
+
+        private ConstantPool(ByteBuffer buffer, int count) {
+            this.buffer = buffer;
+            this.offsets = new int[count];
+            this.tags = new byte[count];
+            this.utf8s = new String[count];
+        }
+
+        static ConstantPool read(ByteBuffer in) {
+            int count = in.getShort() & 0xFFFF;
+            ConstantPool cp = new ConstantPool(in, count);
+            for (int i = 1; i < count; i++) {
+                byte tag = in.get();
+                cp.tags[i] = tag;
+                cp.offsets[i] = in.position();
+                switch (tag) {
+                    case UTF8:
+                        skip(in, in.getShort() & 0xFFFF);
+                        break;
+                    case CLASS:
+                    case STRING:
+                    case METHOD_TYPE:
+                    case MODULE:
+                    case PACKAGE:
+                        skip(in, 2);
+                        break;
+                    case METHOD_HANDLE:
+                        skip(in, 3);
+                        break;
+                    case INTEGER:
+                    case FLOAT:
+                    case FIELD_REF:
+                    case METHOD_REF:
+                    case INTERFACE_METHOD_REF:
+                    case NAME_AND_TYPE:
+                    case DYNAMIC:
+                    case INVOKE_DYNAMIC:
+                        skip(in, 4);
+                        break;
+                    case LONG:
+                    case DOUBLE:
+                        skip(in, 8);
+                        i++; // takes two entries
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown constant pool tag: " + tag);
+                }
+            }
+            return cp;
+        }
+
+        String utf8(int idx) {
+            String value = utf8s[idx];
+            if (value == null) {
+                int offset = offsets[idx];
+                try {
+                    value = new DataInputStream(new ByteArrayInputStream(buffer.array(), offset, buffer.limit() - offset)).readUTF(); // modified UTF-8
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Malformed constant pool utf8 entry #" + idx, e);
+                }
+                utf8s[idx] = value;
+            }
+            return value;
+        }
+
+        String className(int idx) {
+            return utf8(u2At(offsets[idx]));
+        }
+
+        String memberOwner(int refIdx) {
+            return className(u2At(offsets[refIdx]));
+        }
+
+        String memberName(int refIdx) {
+            return utf8(u2At(offsets[nameAndType(refIdx)]));
+        }
+
+        String memberDescriptor(int refIdx) {
+            return utf8(u2At(offsets[nameAndType(refIdx)] + 2));
+        }
+
+        /** @return a known value for numeric and string constants, otherwise an unknown value. */
+        Value constant(int idx) {
+            int offset = offsets[idx];
+            switch (tags[idx]) {
+                case INTEGER:
+                    return Value.of(buffer.getInt(offset));
+                case FLOAT:
+                    return Value.of(buffer.getFloat(offset));
+                case LONG:
+                    return Value.of(buffer.getLong(offset));
+                case DOUBLE:
+                    return Value.of(buffer.getDouble(offset));
+                case STRING:
+                    return Value.of(utf8(u2At(offset)));
+                default:
+                    return Value.UNKNOWN;
+            }
+        }
+
+        private int nameAndType(int refIdx) {
+            return u2At(offsets[refIdx] + 2);
+        }
+
+        private int u2At(int offset) {
+            return buffer.getShort(offset) & 0xFFFF;
+        }
+    }
+
+    private static final class Descriptors {
+        static List<String> parameterTypes(String methodDescriptor) {
+            List<String> types = new ArrayList<>();
+            int i = 1; // after '('
+            while (methodDescriptor.charAt(i) != ')') {
+                int end = typeEnd(methodDescriptor, i);
+                types.add(methodDescriptor.substring(i, end));
+                i = end;
+            }
+            return types;
+        }
+
+        static String returnType(String methodDescriptor) {
+            return methodDescriptor.substring(methodDescriptor.indexOf(')') + 1);
+        }
+
+        static int slotSize(String type) {
+            return "J".equals(type) || "D".equals(type) ? 2 : 1;
+        }
+
+        /** Int constants in bytecode are converted to the parameter type, as a literal in source code would be. */
+        static Object convert(Object value, String type) {
+            if (!(value instanceof Integer) || type.length() != 1) {
+                return value;
+            }
+            int intValue = (Integer) value;
+            switch (type) {
+                case "Z":
+                    return intValue != 0;
+                case "C":
+                    return (char) intValue;
+                case "B":
+                    return (byte) intValue;
+                case "S":
+                    return (short) intValue;
+                default:
+                    return value;
+            }
+        }
+
+        private static int typeEnd(String descriptor, int start) {
+            int i = start;
+            while (descriptor.charAt(i) == '[') {
+                i++;
+            }
+            if (descriptor.charAt(i) == 'L') {
+                i = descriptor.indexOf(';', i);
+            }
+            return i + 1;
+        }
+    }
+
+    private static final class Opcodes {
+        static final int NOP = 0x00;
+        static final int ACONST_NULL = 0x01;
+        static final int ICONST_M1 = 0x02;
+        static final int ICONST_0 = 0x03;
+        static final int ICONST_5 = 0x08;
+        static final int LCONST_0 = 0x09;
+        static final int LCONST_1 = 0x0a;
+        static final int FCONST_0 = 0x0b;
+        static final int FCONST_2 = 0x0d;
+        static final int DCONST_0 = 0x0e;
+        static final int DCONST_1 = 0x0f;
+        static final int BIPUSH = 0x10;
+        static final int SIPUSH = 0x11;
+        static final int LDC = 0x12;
+        static final int LDC_W = 0x13;
+        static final int LDC2_W = 0x14;
+        static final int ILOAD = 0x15;
+        static final int ALOAD = 0x19;
+        static final int ILOAD_0 = 0x1a;
+        static final int ALOAD_0 = 0x2a;
+        static final int ALOAD_3 = 0x2d;
+        static final int IASTORE = 0x4f;
+        static final int SASTORE = 0x56;
+        static final int POP = 0x57;
+        static final int DUP = 0x59;
+        static final int IINC = 0x84;
+        static final int TABLESWITCH = 0xaa;
+        static final int LOOKUPSWITCH = 0xab;
+        static final int RETURN = 0xb1;
+        static final int GETSTATIC = 0xb2;
+        static final int PUTSTATIC = 0xb3;
+        static final int PUTFIELD = 0xb5;
+        static final int INVOKEVIRTUAL = 0xb6;
+        static final int INVOKESPECIAL = 0xb7;
+        static final int INVOKESTATIC = 0xb8;
+        static final int INVOKEDYNAMIC = 0xba;
+        static final int NEW = 0xbb;
+        static final int NEWARRAY = 0xbc;
+        static final int ANEWARRAY = 0xbd;
+        static final int CHECKCAST = 0xc0;
+        static final int WIDE = 0xc4;
+
+        /** Length of each opcode with its operands, 0 for variable length or undefined opcodes. */
+        private static final byte[] LENGTHS = new byte[256];
+
+        static {
+            Arrays.fill(LENGTHS, 0, 0xca, (byte) 1);
+            for (int opcode : new int[]{BIPUSH, LDC, 0x15, 0x16, 0x17, 0x18, ALOAD, 0x36, 0x37, 0x38, 0x39, 0x3a, 0xa9, NEWARRAY}) {
+                LENGTHS[opcode] = 2;
+            }
+            for (int opcode = 0x99; opcode <= 0xa8; opcode++) { // if*, goto, jsr
+                LENGTHS[opcode] = 3;
+            }
+            for (int opcode = GETSTATIC; opcode <= INVOKESTATIC; opcode++) {
+                LENGTHS[opcode] = 3;
+            }
+            for (int opcode : new int[]{SIPUSH, LDC_W, LDC2_W, IINC, NEW, ANEWARRAY, CHECKCAST, 0xc1, 0xc6, 0xc7}) {
+                LENGTHS[opcode] = 3;
+            }
+            LENGTHS[0xc5] = 4; // multianewarray
+            for (int opcode : new int[]{0xb9, INVOKEDYNAMIC, 0xc8, 0xc9}) { // invokeinterface, goto_w, jsr_w
+                LENGTHS[opcode] = 5;
+            }
+            LENGTHS[TABLESWITCH] = 0;
+            LENGTHS[LOOKUPSWITCH] = 0;
+            LENGTHS[WIDE] = 0;
+        }
+
+        static int length(byte[] code, int pc) {
+            int opcode = code[pc] & 0xFF;
+            int length = LENGTHS[opcode];
+            if (length > 0) {
+                return length;
+            }
+            int padded = pc + 4 - (pc & 3); // operands are 4-byte aligned from the start of code
+            if (opcode == TABLESWITCH) {
+                int low = s4(code, padded + 4);
+                int high = s4(code, padded + 8);
+                return padded - pc + 12 + (high - low + 1) * 4;
+            } else if (opcode == LOOKUPSWITCH) {
+                return padded - pc + 8 + s4(code, padded + 4) * 8;
+            } else if (opcode == WIDE) {
+                return (code[pc + 1] & 0xFF) == IINC ? 6 : 4;
+            }
+            throw new IllegalArgumentException(String.format("Unknown opcode 0x%02x at %s", opcode, pc));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package online.sharedtype.processor.parser;
+
+import online.sharedtype.processor.context.Context;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Locates class files of enums on the compilation classpath via {@link javax.annotation.processing.Filer},
+ * e.g. entries in dependency jars. Parsed class files are cached by their URIs, i.e. per jar entry.
+ *
+ * @see EnumClassFile
+ * @author Cause Chung
+ */
+final class EnumClassFileReader {
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private final Context ctx;
+    private final Map<URI, EnumClassFile> cache = new HashMap<>();
+
+    EnumClassFileReader(Context ctx) {
+        this.ctx = ctx;
+    }
+
+    /**
+     * @return the parsed class file, or null if it cannot be found on the classpath.
+     */
+    EnumClassFile read(TypeElement enumTypeElement) {
+        Elements elements = ctx.getProcessingEnv().getElementUtils();
+        String packageName = elements.getPackageOf(enumTypeElement).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(enumTypeElement).toString();
+        String relativeName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + CLASS_FILE_EXTENSION;
+
+        FileObject classFile;
+        try {
+            classFile = ctx.getProcessingEnv().getFiler().getResource(StandardLocation.CLASS_PATH, packageName, relativeName);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        URI uri = classFile.toUri();
+        EnumClassFile enumClassFile = cache.get(uri);
+        if (enumClassFile == null) {
+            byte[] bytes;
+            try (InputStream in = classFile.openInputStream()) {
+                bytes = readAllBytes(in);
+            } catch (IOException e) {
+                return null; // not found
+            }
+            enumClassFile = EnumClassFile.parse(bytes);
+            cache.put(uri, enumClassFile);
+        }
+        return enumClassFile;
+    }
+
+    private static byte[] readAllBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
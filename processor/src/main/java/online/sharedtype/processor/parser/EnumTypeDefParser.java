@@ -1,10 +1,12 @@
 package online.sharedtype.processor.parser;
 
+import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.LiteralTree;
 import com.sun.source.tree.NewClassTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
+import com.sun.source.util.Trees;
 import lombok.RequiredArgsConstructor;
 import online.sharedtype.SharedType;
 import online.sharedtype.processor.domain.EnumDef;
@@ -19,6 +21,7 @@ import online.sharedtype.support.exception.SharedTypeInternalError;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import java.util.ArrayList;
@@ -29,6 +32,10 @@ import static online.sharedtype.processor.domain.Constants.STRING_TYPE_INFO;
 
 /**
  * Literal values are parsed via {@link Tree} API. It has limitations, see the documentation for more details.
+ * <br>
+ * Trees of enum constants are looked up from the members of the enum's tree in a single pass,
+ * as looking up the tree of each constant by its element searches the enclosing tree again.
+ * If the source tree is not available, e.g. the enum is from a dependency jar, literal values are read from its class file.
  *
  * @author Cause Chung
  */
@@ -36,10 +43,11 @@ import static online.sharedtype.processor.domain.Constants.STRING_TYPE_INFO;
 final class EnumTypeDefParser implements TypeDefParser {
     private final Context ctx;
     private final TypeInfoParser typeInfoParser;
+    private final EnumClassFileReader classFileReader;
 
     @Override
     public TypeDef parse(TypeElement typeElement) {
-        Config config = new Config(typeElement);
+        Config config = ctx.getConfig(typeElement);
         List<? extends Element> enclosedElements = typeElement.getEnclosedElements();
         List<VariableElement> enumConstantElems = new ArrayList<>(enclosedElements.size());
 
@@ -72,33 +80,91 @@ final class EnumTypeDefParser implements TypeDefParser {
     }
 
     private List<EnumValueInfo> parseEnumConstants(TypeElement enumTypeElement, List<VariableElement> enumConstants, EnumValueMarker enumValueMarker) {
-        List<EnumValueInfo> res = new ArrayList<>(enumConstants.size());
         TypeInfo valueTypeInfo = typeInfoParser.parse(enumValueMarker.enumValueVariableElem.asType());
+        Trees trees = ctx.getTrees();
+        ClassTree enumTree = trees == null ? null : trees.getTree(enumTypeElement);
+        if (enumTree == null) {
+            return parseEnumConstantsFromClassFile(enumTypeElement, enumConstants, enumValueMarker, valueTypeInfo);
+        }
         int ctorArgIdx = enumValueMarker.matchAndGetConstructorArgIdx();
         if (ctorArgIdx < 0) {
             return Collections.emptyList();
         }
+        List<EnumValueInfo> res = new ArrayList<>(enumConstants.size());
+
+        // enum constants are the leading members of the tree, in the same order as their elements
+        List<? extends Tree> members = enumTree.getMembers();
+        int memberIdx = 0;
         for (VariableElement enumConstant : enumConstants) {
-            Tree tree = ctx.getTrees().getTree(enumConstant);
-            if (tree instanceof VariableTree) {
-                VariableTree variableTree = (VariableTree) tree;
-                Object value = resolveValue(enumTypeElement, variableTree, ctorArgIdx);
-                if (value != null) {
-                    res.add(new EnumValueInfo(valueTypeInfo, value));
+            VariableTree variableTree = null;
+            while (variableTree == null && memberIdx < members.size()) {
+                Tree member = members.get(memberIdx++);
+                if (member instanceof VariableTree && sameName(((VariableTree) member).getName(), enumConstant.getSimpleName())) {
+                    variableTree = (VariableTree) member;
                 }
-            } else if (tree == null) {
-                ctx.error("Literal value cannot be parsed from enum constant: %s of enum %s, because source tree from the element is null." +
-                    " This could mean at the time of the annotation processing, the source tree was not available." +
-                    " Is this class from a dependency jar/compiled class file? Please refer to the documentation for more information.",
-                    enumConstant, enumTypeElement);
-            } else {
+            }
+            if (variableTree == null) {
                 throw new SharedTypeInternalError(String.format(
-                    "Unsupported tree during parsing enum %s, kind: %s, tree: %s, element: %s", enumTypeElement, tree.getKind(), tree, enumConstant));
+                    "Tree of enum constant %s is not found in members of enum %s", enumConstant, enumTypeElement));
+            }
+            Object value = resolveValue(enumTypeElement, variableTree, ctorArgIdx);
+            if (value != null) {
+                res.add(new EnumValueInfo(valueTypeInfo, value));
             }
         }
         return res;
     }
 
+    private List<EnumValueInfo> parseEnumConstantsFromClassFile(TypeElement enumTypeElement, List<VariableElement> enumConstants,
+                                                                EnumValueMarker enumValueMarker, TypeInfo valueTypeInfo) {
+        EnumClassFile classFile = classFileReader.read(enumTypeElement);
+        if (classFile == null) {
+            ctx.error("Literal values cannot be parsed from enum %s, because source tree from the element is null and its class file is not found." +
+                " This could mean at the time of the annotation processing, neither the source tree nor the class file was available." +
+                " Please refer to the documentation for more information.",
+                enumTypeElement);
+            return Collections.emptyList();
+        }
+        int ctorArgIdx = enumValueMarker.constructorArgIdx;
+        if (ctorArgIdx < 0) { // constructor parameter names are usually not kept in class files
+            ctorArgIdx = classFile.fieldParameterIndex(enumValueMarker.enumValueVariableElem.getSimpleName().toString());
+        }
+        if (ctorArgIdx < 0) {
+            ctorArgIdx = enumValueMarker.matchAndGetConstructorArgIdx();
+            if (ctorArgIdx < 0) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<EnumValueInfo> res = new ArrayList<>(enumConstants.size());
+        for (VariableElement enumConstant : enumConstants) {
+            List<Object> args = classFile.constructorArgs(enumConstant.getSimpleName().toString());
+            if (args == null) {
+                ctx.warning("Literal value of enum constant %s in enum %s cannot be read from the class file, the constant is skipped." +
+                    " Its initialization is not interpreted, unsupported opcode: 0x%02x.", enumConstant, enumTypeElement, classFile.unsupportedOpcode());
+                continue;
+            }
+            if (ctorArgIdx >= args.size()) {
+                ctx.error("Literal value cannot be read from the class file of enum %s for enum constant %s, argIndex: %s.",
+                    enumTypeElement, enumConstant, ctorArgIdx);
+                continue;
+            }
+            Object value = args.get(ctorArgIdx);
+            if (value == EnumClassFile.NON_CONSTANT) {
+                ctx.error("Unsupported argument in enum type %s of enum constant %s, argIndex: %s. Only literals are supported as enum value.",
+                    enumTypeElement, enumConstant, ctorArgIdx);
+            } else if (value != null) {
+                res.add(new EnumValueInfo(valueTypeInfo, value));
+            }
+        }
+        return res;
+    }
+
+    /** Names from trees and elements of the same compilation are usually the same instance. */
+    private static boolean sameName(Name treeName, Name elementName) {
+        return treeName == elementName || treeName.contentEquals(elementName);
+    }
+
     private Object resolveValue(TypeElement enumTypeElement, VariableTree tree, int ctorArgIdx) {
         ExpressionTree init = tree.getInitializer();
         if (init instanceof NewClassTree) {
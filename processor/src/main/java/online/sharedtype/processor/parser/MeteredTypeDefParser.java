@@ -0,0 +1,30 @@
+package online.sharedtype.processor.parser;
+
+import lombok.RequiredArgsConstructor;
+import online.sharedtype.processor.context.ProcessingMetrics;
+import online.sharedtype.processor.domain.TypeDef;
+
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Record time and calls of a parser.
+ *
+ * @see ProcessingMetrics
+ * @author Cause Chung
+ */
+@RequiredArgsConstructor
+final class MeteredTypeDefParser implements TypeDefParser {
+    private final ProcessingMetrics metrics;
+    private final String stageName;
+    private final TypeDefParser delegate;
+
+    @Override
+    public TypeDef parse(TypeElement typeElement) {
+        long start = System.nanoTime();
+        try {
+            return delegate.parse(typeElement);
+        } finally {
+            metrics.recordStage(stageName, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package online.sharedtype.processor.parser;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads accessors of record components.
+ * Record components are only available in the Java 16+ API, they are accessed reflectively, so that the processor still builds and runs on Java 8.
+ *
+ * @author Cause Chung
+ */
+final class RecordAccessors {
+    private static final String RECORD_KIND = "RECORD";
+    private static final Method GET_RECORD_COMPONENTS;
+    private static final Method GET_ACCESSOR;
+    static {
+        Method getRecordComponents = null;
+        Method getAccessor = null;
+        try {
+            getRecordComponents = TypeElement.class.getMethod("getRecordComponents");
+            getAccessor = Class.forName("javax.lang.model.element.RecordComponentElement").getMethod("getAccessor");
+        } catch (ReflectiveOperationException e) {
+            // running on Java 8-15, there are no records.
+        }
+        GET_RECORD_COMPONENTS = getRecordComponents;
+        GET_ACCESSOR = getAccessor;
+    }
+
+    private RecordAccessors() {
+    }
+
+    /**
+     * @return accessor methods of record components, or an empty set if the type is not a record.
+     */
+    static Set<Element> of(TypeElement typeElement) {
+        if (GET_RECORD_COMPONENTS == null || !RECORD_KIND.equals(typeElement.getKind().name())) {
+            return Collections.emptySet();
+        }
+        try {
+            List<?> recordComponents = (List<?>) GET_RECORD_COMPONENTS.invoke(typeElement);
+            Set<Element> accessors = Collections.newSetFromMap(new IdentityHashMap<>(recordComponents.size() * 2));
+            for (Object recordComponent : recordComponents) {
+                Element accessor = (Element) GET_ACCESSOR.invoke(recordComponent);
+                if (accessor != null) {
+                    accessors.add(accessor);
+                }
+            }
+            return accessors;
+        } catch (ReflectiveOperationException e) {
+            return Collections.emptySet(); // fall back to scanning accessors as for classes
+        }
+    }
+}
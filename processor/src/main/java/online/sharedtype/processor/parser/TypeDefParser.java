@@ -2,6 +2,7 @@ package online.sharedtype.processor.parser;
 
 import online.sharedtype.processor.domain.TypeDef;
 import online.sharedtype.processor.context.Context;
+import online.sharedtype.processor.context.ProcessingMetrics;
 import online.sharedtype.processor.parser.type.TypeInfoParser;
 
 import javax.annotation.Nullable;
@@ -31,8 +32,13 @@ public interface TypeDefParser {
         Map<String, TypeDefParser> parsers = new HashMap<>(4);
         parsers.put(ElementKind.CLASS.name(), new ClassTypeDefParser(ctx, typeInfoParser));
         parsers.put(ElementKind.INTERFACE.name(), new ClassTypeDefParser(ctx, typeInfoParser));
-        parsers.put(ElementKind.ENUM.name(), new EnumTypeDefParser(ctx, typeInfoParser));
+        parsers.put(ElementKind.ENUM.name(), new EnumTypeDefParser(ctx, typeInfoParser, new EnumClassFileReader(ctx)));
         parsers.put("RECORD", new ClassTypeDefParser(ctx, typeInfoParser));
-        return new CompositeTypeDefParser(ctx, parsers);
+        ProcessingMetrics metrics = ctx.getMetrics();
+        if (metrics != null) {
+            parsers.replaceAll((kind, parser) -> new MeteredTypeDefParser(metrics, parser.getClass().getSimpleName() + ".parse", parser));
+        }
+        TypeDefParser compositeParser = new CompositeTypeDefParser(ctx, parsers, ctx.getTypeDefCache());
+        return metrics == null ? compositeParser : new MeteredTypeDefParser(metrics, "TypeDefParser.parse", compositeParser);
     }
 }
@@ -0,0 +1,29 @@
+package online.sharedtype.processor.parser.type;
+
+import lombok.RequiredArgsConstructor;
+import online.sharedtype.processor.context.ProcessingMetrics;
+import online.sharedtype.processor.domain.TypeInfo;
+
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Record time and calls of type info parsing. Nested parsing of type arguments and array components is not counted separately.
+ *
+ * @see ProcessingMetrics
+ * @author Cause Chung
+ */
+@RequiredArgsConstructor
+final class MeteredTypeInfoParser implements TypeInfoParser {
+    private final ProcessingMetrics metrics;
+    private final TypeInfoParser delegate;
+
+    @Override
+    public TypeInfo parse(TypeMirror typeMirror) {
+        long start = System.nanoTime();
+        try {
+            return delegate.parse(typeMirror);
+        } finally {
+            metrics.recordStage("TypeInfoParser.parse", System.nanoTime() - start);
+        }
+    }
+}
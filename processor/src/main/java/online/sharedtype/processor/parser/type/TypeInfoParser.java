@@ -4,6 +4,7 @@ import online.sharedtype.SharedType;
 import online.sharedtype.processor.parser.TypeDefParser;
 import online.sharedtype.processor.domain.TypeInfo;
 import online.sharedtype.processor.context.Context;
+import online.sharedtype.processor.context.ProcessingMetrics;
 
 import javax.lang.model.type.TypeMirror;
 
@@ -30,6 +31,8 @@ public interface TypeInfoParser {
     TypeInfo parse(TypeMirror typeMirror);
 
     static TypeInfoParser create(Context ctx) {
-        return new TypeInfoParserImpl(ctx);
+        TypeInfoParser typeInfoParser = new TypeInfoParserImpl(ctx);
+        ProcessingMetrics metrics = ctx.getMetrics();
+        return metrics == null ? typeInfoParser : new MeteredTypeInfoParser(metrics, typeInfoParser);
     }
 }
@@ -1,13 +1,16 @@
 package online.sharedtype.processor.parser.type;
 
 import lombok.RequiredArgsConstructor;
-import online.sharedtype.processor.domain.ArrayTypeInfo;
 import online.sharedtype.processor.domain.ConcreteTypeInfo;
+import online.sharedtype.processor.domain.Constants;
+import online.sharedtype.processor.domain.MapTypeInfo;
 import online.sharedtype.processor.domain.TypeInfo;
 import online.sharedtype.processor.domain.TypeVariableInfo;
 import online.sharedtype.processor.context.Context;
 import online.sharedtype.support.exception.SharedTypeInternalError;
 
+import javax.annotation.Nullable;
+import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
@@ -15,9 +18,11 @@ import javax.lang.model.type.ExecutableType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.type.TypeVariable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static online.sharedtype.processor.domain.Constants.PRIMITIVES;
 import static online.sharedtype.support.Preconditions.checkArgument;
@@ -38,7 +43,7 @@ final class TypeInfoParserImpl implements TypeInfoParser {
         if (typeKind.isPrimitive()) {
             return PRIMITIVES.get(typeKind);
         } else if (typeKind == TypeKind.ARRAY) {
-            return new ArrayTypeInfo(parse(((ArrayType) typeMirror).getComponentType()));
+            return ctx.getTypeStore().internArrayTypeInfo(parse(((ArrayType) typeMirror).getComponentType()));
         } else if (typeKind == TypeKind.DECLARED) {
             return parseDeclared((DeclaredType) typeMirror);
         } else if (typeKind == TypeKind.TYPEVAR) {
@@ -51,12 +56,10 @@ final class TypeInfoParserImpl implements TypeInfoParser {
 
     private TypeInfo parseDeclared(DeclaredType declaredType) {
         TypeElement typeElement = (TypeElement) declaredType.asElement();
-        String qualifiedName = typeElement.getQualifiedName().toString();
-        String simpleName = typeElement.getSimpleName().toString();
         List<? extends TypeMirror> typeArgs = declaredType.getTypeArguments();
 
         int arrayStack = 0;
-        boolean isTypeVar = false;
+        TypeVariableInfo typeVarInfo = null;
         TypeMirror currentType = declaredType;
         while (ctx.isArraylike(currentType)) {
             checkArgument(typeArgs.size() == 1, "Array type must have exactly one type argument, but got: %s, type: %s", typeArgs.size(), currentType);
@@ -64,17 +67,11 @@ final class TypeInfoParserImpl implements TypeInfoParser {
             currentType = typeArgs.get(0);
             if (currentType instanceof DeclaredType) {
                 DeclaredType argDeclaredType = (DeclaredType) currentType;
-                TypeElement element = (TypeElement) argDeclaredType.asElement();
-                qualifiedName = element.getQualifiedName().toString();
-                simpleName = element.getSimpleName().toString();
+                typeElement = (TypeElement) argDeclaredType.asElement();
                 typeArgs = argDeclaredType.getTypeArguments();
             } else if (currentType instanceof TypeVariable) {
-                TypeVariable argTypeVariable = (TypeVariable) currentType;
-                TypeVariableInfo typeVarInfo = parseTypeVariable(argTypeVariable);
-                qualifiedName = typeVarInfo.name();
-                simpleName = typeVarInfo.name();
+                typeVarInfo = parseTypeVariable((TypeVariable) currentType);
                 typeArgs = Collections.emptyList();
-                isTypeVar = true;
             }
         }
         /* This check should be enough since array types have been stripped off.
@@ -82,41 +79,102 @@ final class TypeInfoParserImpl implements TypeInfoParser {
          * Generic type with different reified type arguments have different literal representations.
          * E.g. List<String> and List<Integer> are different types.
          * In target code this could be e.g. interface A extends List<String> {} and interface B extends List<Integer> {}.
-         * So generic types are not easy to compare in terms of caching. Current implementation does not cache generic types.
+         * So generic types are not cached by qualified name, but interned by qualified name and their interned type arguments.
          */
         boolean isGeneric = !typeArgs.isEmpty();
 
-        TypeInfo typeInfo = null;
-        if (!isGeneric) {
+        TypeInfo typeInfo;
+        if (currentType instanceof DeclaredType && ctx.isMaplike(currentType)) {
+            typeInfo = parseMaplike((DeclaredType) currentType);
+        } else if (typeVarInfo != null) {
+            typeInfo = parseTypeVariableElement(typeVarInfo.name());
+        } else if (isGeneric) {
+            Name qualifiedName = typeElement.getQualifiedName();
+            boolean resolved = ctx.getTypeStore().contains(qualifiedName);
+            List<TypeInfo> parsedTypeArgs = new ArrayList<>(typeArgs.size());
+            for (TypeMirror typeArg : typeArgs) {
+                parsedTypeArgs.add(parse(typeArg));
+            }
+            ConcreteTypeInfo genericTypeInfo = ctx.getTypeStore().getGenericTypeInfo(qualifiedName, parsedTypeArgs);
+            if (genericTypeInfo == null) {
+                genericTypeInfo = ConcreteTypeInfo.builder()
+                    .qualifiedName(qualifiedName.toString())
+                    .simpleName(typeElement.getSimpleName().toString())
+                    .typeArgs(parsedTypeArgs)
+                    .resolved(resolved)
+                    .build();
+                ctx.getTypeStore().saveGenericTypeInfo(genericTypeInfo);
+            }
+            typeInfo = genericTypeInfo;
+        } else {
+            Name qualifiedName = typeElement.getQualifiedName();
             typeInfo = ctx.getTypeStore().getTypeInfo(qualifiedName);
-        }
-
-        if (typeInfo == null) {
-            boolean resolved = isTypeVar || ctx.getTypeStore().contains(qualifiedName);
-            List<TypeInfo> parsedTypeArgs = typeArgs.stream().map(this::parse).collect(Collectors.toList());
-            typeInfo = ConcreteTypeInfo.builder()
-                .qualifiedName(qualifiedName)
-                .simpleName(simpleName)
-                .typeArgs(parsedTypeArgs)
-                .resolved(resolved)
-                .build();
-
-            if (!isGeneric) {
+            if (typeInfo == null) {
+                typeInfo = ConcreteTypeInfo.builder()
+                    .qualifiedName(qualifiedName.toString())
+                    .simpleName(typeElement.getSimpleName().toString())
+                    .resolved(ctx.getTypeStore().contains(qualifiedName))
+                    .build();
                 ctx.getTypeStore().saveTypeInfo(qualifiedName, typeInfo);
             }
         }
 
         while (arrayStack > 0) {
-            typeInfo = new ArrayTypeInfo(typeInfo);
+            typeInfo = ctx.getTypeStore().internArrayTypeInfo(typeInfo);
             arrayStack--;
         }
         return typeInfo;
     }
 
+    /**
+     * Key and value types are reified from the predefined map-like supertype, e.g. a "class MyMap extends HashMap<String, Integer>".
+     * A raw map-like type has Object as key and value types.
+     */
+    private MapTypeInfo parseMaplike(DeclaredType declaredType) {
+        DeclaredType maplikeType = findMaplikeSupertype(declaredType);
+        List<? extends TypeMirror> typeArgs = maplikeType == null ? Collections.<TypeMirror>emptyList() : maplikeType.getTypeArguments();
+        if (typeArgs.size() != 2) {
+            return ctx.getTypeStore().internMapTypeInfo(Constants.OBJECT_TYPE_INFO, Constants.OBJECT_TYPE_INFO);
+        }
+        return ctx.getTypeStore().internMapTypeInfo(parse(typeArgs.get(0)), parse(typeArgs.get(1)));
+    }
+
+    @Nullable
+    private DeclaredType findMaplikeSupertype(DeclaredType declaredType) {
+        Deque<DeclaredType> stack = new ArrayDeque<>();
+        stack.push(declaredType);
+        while (!stack.isEmpty()) {
+            DeclaredType type = stack.pop();
+            if (ctx.isPredefinedMaplike((TypeElement) type.asElement())) {
+                return type;
+            }
+            for (TypeMirror supertype : ctx.getProcessingEnv().getTypeUtils().directSupertypes(type)) {
+                if (supertype instanceof DeclaredType && ctx.isMaplike(supertype)) {
+                    stack.push((DeclaredType) supertype);
+                }
+            }
+        }
+        return null;
+    }
+
     private TypeVariableInfo parseTypeVariable(TypeVariable typeVariable) {
-        return TypeVariableInfo.builder()
-            .name(typeVariable.asElement().getSimpleName().toString())
-            .build();
+        return ctx.getTypeStore().internTypeVariableInfo(typeVariable.asElement().getSimpleName().toString());
+    }
+
+    /**
+     * A type variable as the element type of an array-like type, e.g. "T" in "List<T>", is kept as a resolved concrete type named after the variable.
+     */
+    private TypeInfo parseTypeVariableElement(String name) {
+        TypeInfo typeInfo = ctx.getTypeStore().getTypeInfo(name);
+        if (typeInfo == null) {
+            typeInfo = ConcreteTypeInfo.builder()
+                .qualifiedName(name)
+                .simpleName(name)
+                .resolved(true)
+                .build();
+            ctx.getTypeStore().saveTypeInfo(name, typeInfo);
+        }
+        return typeInfo;
     }
 
 }
@@ -1,12 +1,12 @@
 package online.sharedtype.processor.resolver;
 
-import lombok.RequiredArgsConstructor;
 import online.sharedtype.processor.domain.ArrayTypeInfo;
 import online.sharedtype.processor.domain.ClassDef;
 import online.sharedtype.processor.domain.ConcreteTypeInfo;
 import online.sharedtype.processor.domain.EnumDef;
 import online.sharedtype.processor.domain.EnumValueInfo;
 import online.sharedtype.processor.domain.FieldComponentInfo;
+import online.sharedtype.processor.domain.MapTypeInfo;
 import online.sharedtype.processor.domain.TypeDef;
 import online.sharedtype.processor.domain.TypeInfo;
 import online.sharedtype.processor.domain.TypeVariableInfo;
@@ -17,37 +17,69 @@ import online.sharedtype.support.exception.SharedTypeInternalError;
 
 import javax.lang.model.element.TypeElement;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
-import java.util.LinkedHashSet;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Implementation that uses stacks to traverse the type graph.
+ * Annotated types are resolved one by one, once all types reachable from an annotated type are resolved, they are passed on.
+ * Types already parsed, e.g. other annotated types, are reachable as well, though their type infos are already resolved,
+ * so that they are passed on before types depending on them.
  *
  * @author Cause Chung
  */
-@RequiredArgsConstructor
 final class LoopTypeResolver implements TypeResolver {
     private static final int DEPENDENCY_COUNT_EXPANSION_FACTOR = 2; // TODO: find a proper number
     private final Context ctx;
     private final TypeDefParser typeDefParser;
+    private final ResolutionPolicy resolutionPolicy;
+    private final TypeDefSorter typeDefSorter;
+
+    LoopTypeResolver(Context ctx, TypeDefParser typeDefParser) {
+        this.ctx = ctx;
+        this.typeDefParser = typeDefParser;
+        this.resolutionPolicy = new ResolutionPolicy(ctx);
+        this.typeDefSorter = new TypeDefSorter(ctx);
+    }
 
     @Override
-    public List<TypeDef> resolve(List<TypeDef> typeDefs) {
+    public void resolve(List<TypeDef> typeDefs, Consumer<TypeDef> consumer) {
         int n = typeDefs.size() * DEPENDENCY_COUNT_EXPANSION_FACTOR;
-        LinkedHashSet<TypeDef> resolvedDefs = new LinkedHashSet<>(n);
+        Set<TypeDef> resolvedDefs = new HashSet<>(n);
         Deque<TypeDef> processingDefStack = new ArrayDeque<>(n); // TODO: pass metadata from ctx to better size these buffers
         Deque<TypeInfo> processingInfoStack = new ArrayDeque<>(n);
-        processingDefStack.addAll(typeDefs);
+        /* Type definitions whose already parsed dependencies have been pushed. */
+        Set<TypeDef> expandedDefs = Collections.newSetFromMap(new IdentityHashMap<>(n));
+        TypeDefSorter.Sorting sorting = typeDefSorter.start(n, consumer);
+        resolutionPolicy.indexDepths(typeDefs, typeDefParser);
+
+        for (TypeDef root : typeDefs) {
+            processingDefStack.push(root);
+            resolveClosure(processingDefStack, processingInfoStack, expandedDefs, resolvedDefs, sorting);
+            sorting.visit(root);
+        }
+    }
 
+    private void resolveClosure(Deque<TypeDef> processingDefStack, Deque<TypeInfo> processingInfoStack, @SideEffect Set<TypeDef> expandedDefs,
+                                @SideEffect Set<TypeDef> resolvedDefs, @SideEffect TypeDefSorter.Sorting sorting) {
         while (!processingDefStack.isEmpty()) {
             TypeDef typeDef = processingDefStack.pop();
             if (resolvedDefs.contains(typeDef)) {
                 continue;
             }
+            if (expandedDefs.add(typeDef)) {
+                processingDefStack.push(typeDef);
+                pushParsedDependencies(typeDef, processingInfoStack, processingDefStack, expandedDefs, resolvedDefs);
+                continue;
+            }
             if (typeDef.resolved()) {
                 resolvedDefs.add(typeDef);
+                sorting.add(typeDef);
                 continue;
             }
 
@@ -83,8 +115,46 @@ final class LoopTypeResolver implements TypeResolver {
 
             resolveTypeInfo(processingDefStack, processingInfoStack);
         }
+    }
 
-        return new ArrayList<>(resolvedDefs);
+    /**
+     * Push definitions of dependency types that are already parsed, whose type infos are resolved and not walked by {@link #resolveTypeInfo}.
+     */
+    private void pushParsedDependencies(TypeDef typeDef, Deque<TypeInfo> processingInfoStack, @SideEffect Deque<TypeDef> processingDefStack,
+                                        Set<TypeDef> expandedDefs, Set<TypeDef> resolvedDefs) {
+        if (typeDef instanceof ClassDef) {
+            ClassDef classDef = (ClassDef) typeDef;
+            for (FieldComponentInfo fieldComponentInfo : classDef.components()) {
+                processingInfoStack.push(fieldComponentInfo.type());
+            }
+            processingInfoStack.addAll(classDef.supertypes());
+        } else if (typeDef instanceof EnumDef) {
+            for (EnumValueInfo component : ((EnumDef) typeDef).components()) {
+                processingInfoStack.push(component.type());
+            }
+        }
+        while (!processingInfoStack.isEmpty()) {
+            TypeInfo typeInfo = processingInfoStack.pop();
+            if (typeInfo instanceof ConcreteTypeInfo) {
+                ConcreteTypeInfo concreteTypeInfo = (ConcreteTypeInfo) typeInfo;
+                if (concreteTypeInfo.opaque()) {
+                    continue;
+                }
+                if (concreteTypeInfo.shallowResolved()) {
+                    TypeDef dependency = ctx.getTypeStore().getTypeDef(concreteTypeInfo.qualifiedName());
+                    if (dependency != null && !expandedDefs.contains(dependency) && !resolvedDefs.contains(dependency)) {
+                        processingDefStack.push(dependency);
+                    }
+                }
+                processingInfoStack.addAll(concreteTypeInfo.typeArgs());
+            } else if (typeInfo instanceof ArrayTypeInfo) {
+                processingInfoStack.push(((ArrayTypeInfo) typeInfo).component());
+            } else if (typeInfo instanceof MapTypeInfo) {
+                MapTypeInfo mapTypeInfo = (MapTypeInfo) typeInfo;
+                processingInfoStack.push(mapTypeInfo.keyType());
+                processingInfoStack.push(mapTypeInfo.valueType());
+            }
+        }
     }
 
     @SideEffect
@@ -95,6 +165,10 @@ final class LoopTypeResolver implements TypeResolver {
                 ConcreteTypeInfo concreteTypeInfo = (ConcreteTypeInfo) typeInfo;
                 if (!concreteTypeInfo.shallowResolved()) {
                     TypeElement typeElement = ctx.getProcessingEnv().getElementUtils().getTypeElement(concreteTypeInfo.qualifiedName());
+                    if (!resolutionPolicy.shouldResolve(concreteTypeInfo, typeElement)) {
+                        concreteTypeInfo.markOpaque();
+                        continue;
+                    }
                     TypeDef parsed = typeDefParser.parse(typeElement);
                     if (parsed != null) {
                         concreteTypeInfo.markShallowResolved();
@@ -111,6 +185,14 @@ final class LoopTypeResolver implements TypeResolver {
                 if (!arrayTypeInfo.resolved()) {
                     processingInfoStack.push(arrayTypeInfo.component());
                 }
+            } else if (typeInfo instanceof MapTypeInfo) {
+                MapTypeInfo mapTypeInfo = (MapTypeInfo) typeInfo;
+                if (!mapTypeInfo.keyType().resolved()) {
+                    processingInfoStack.push(mapTypeInfo.keyType());
+                }
+                if (!mapTypeInfo.valueType().resolved()) {
+                    processingInfoStack.push(mapTypeInfo.valueType());
+                }
             } else if (typeInfo instanceof TypeVariableInfo) {
                 TypeVariableInfo typeVariableInfo = (TypeVariableInfo) typeInfo;
                 throw new SharedTypeInternalError("TypeVariableInfo is not supported yet: " + typeVariableInfo);
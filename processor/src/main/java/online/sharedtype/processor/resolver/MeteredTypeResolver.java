@@ -0,0 +1,37 @@
+package online.sharedtype.processor.resolver;
+
+import lombok.RequiredArgsConstructor;
+import online.sharedtype.processor.context.ProcessingMetrics;
+import online.sharedtype.processor.domain.TypeDef;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Record time of resolution, which includes parsing of dependency types, and the size of the resolved type graph.
+ * Time spent in the consumer, e.g. writing, is excluded.
+ *
+ * @see ProcessingMetrics
+ * @author Cause Chung
+ */
+@RequiredArgsConstructor
+final class MeteredTypeResolver implements TypeResolver {
+    private final ProcessingMetrics metrics;
+    private final TypeResolver delegate;
+
+    @Override
+    public void resolve(List<TypeDef> typeDefs, Consumer<TypeDef> consumer) {
+        long[] consumerNanos = new long[1];
+        int[] resolvedCount = new int[1];
+        long start = System.nanoTime();
+        delegate.resolve(typeDefs, typeDef -> {
+            long consumerStart = System.nanoTime();
+            consumer.accept(typeDef);
+            consumerNanos[0] += System.nanoTime() - consumerStart;
+            resolvedCount[0]++;
+        });
+        metrics.recordStage("TypeResolver.resolve", System.nanoTime() - start - consumerNanos[0]);
+        metrics.addCounter("TypeResolver.annotatedTypeDefs", typeDefs.size());
+        metrics.addCounter("TypeResolver.resolvedTypeDefs", resolvedCount[0]);
+    }
+}
@@ -0,0 +1,178 @@
+package online.sharedtype.processor.resolver;
+
+import com.sun.source.util.Trees;
+import online.sharedtype.processor.context.Context;
+import online.sharedtype.processor.context.Props;
+import online.sharedtype.processor.domain.ArrayTypeInfo;
+import online.sharedtype.processor.domain.ClassDef;
+import online.sharedtype.processor.domain.ConcreteTypeInfo;
+import online.sharedtype.processor.domain.EnumDef;
+import online.sharedtype.processor.domain.EnumValueInfo;
+import online.sharedtype.processor.domain.FieldComponentInfo;
+import online.sharedtype.processor.domain.MapTypeInfo;
+import online.sharedtype.processor.domain.TypeDef;
+import online.sharedtype.processor.domain.TypeInfo;
+import online.sharedtype.processor.parser.TypeDefParser;
+import online.sharedtype.support.annotation.SideEffect;
+
+import javax.annotation.Nullable;
+import javax.lang.model.element.TypeElement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decide whether a dependency type should be resolved, so that the resolver stops expanding the type graph early,
+ * e.g. into library types that are not meant to be emitted.
+ * A type that should not be resolved is marked as opaque.
+ * <br>
+ * The depth of a type is its shortest distance from any annotated type, so that a type shared by multiple annotated types
+ * is decided the same way regardless of the order in which they are resolved.
+ *
+ * @see Props#getResolutionMaxDepth()
+ * @see Props#getResolutionPackages()
+ * @see Props#isResolutionSourceOnly()
+ * @author Cause Chung
+ */
+final class ResolutionPolicy {
+    private final Context ctx;
+    private final int maxDepth;
+    private final Set<String> packages;
+    private final boolean sourceOnly;
+    /** Qualified names of dependency types within max depth, indexed by {@link #indexDepths(List, TypeDefParser)}. */
+    private final Set<String> typesWithinMaxDepth = new HashSet<>();
+
+    ResolutionPolicy(Context ctx) {
+        this.ctx = ctx;
+        Props props = ctx.getProps();
+        this.maxDepth = props.getResolutionMaxDepth();
+        this.packages = props.getResolutionPackages();
+        this.sourceOnly = props.isResolutionSourceOnly();
+        if (sourceOnly && ctx.getTrees() == null) {
+            ctx.error("Property 'sharedtype.resolution.source-only' requires the compiler Tree API to tell types with sources," +
+                " but it is not available from the processing environment. Please disable the property for this build.");
+        }
+    }
+
+    /**
+     * If max depth is set, walk the type graph breadth-first from all annotated types before resolution,
+     * and record types reached within max depth. Types beyond max depth are not parsed.
+     * Must be called before {@link #shouldResolve(ConcreteTypeInfo, TypeElement)} for the same annotated types.
+     *
+     * @param roots annotated types, at depth 0.
+     */
+    void indexDepths(List<TypeDef> roots, TypeDefParser typeDefParser) {
+        typesWithinMaxDepth.clear();
+        if (maxDepth < 0) {
+            return;
+        }
+        Set<TypeDef> visitedDefs = Collections.newSetFromMap(new IdentityHashMap<>(roots.size() * 2));
+        List<TypeDef> currentLevel = new ArrayList<>(roots);
+        visitedDefs.addAll(roots);
+        Deque<TypeInfo> processingInfoStack = new ArrayDeque<>();
+        for (int depth = 1; depth <= maxDepth && !currentLevel.isEmpty(); depth++) {
+            List<TypeDef> nextLevel = new ArrayList<>();
+            for (TypeDef typeDef : currentLevel) {
+                pushComponentTypes(typeDef, processingInfoStack);
+                while (!processingInfoStack.isEmpty()) {
+                    TypeInfo typeInfo = processingInfoStack.pop();
+                    if (typeInfo instanceof ConcreteTypeInfo) {
+                        ConcreteTypeInfo concreteTypeInfo = (ConcreteTypeInfo) typeInfo;
+                        if (indexDependency(concreteTypeInfo, typeDefParser, visitedDefs, nextLevel)) {
+                            processingInfoStack.addAll(concreteTypeInfo.typeArgs());
+                        }
+                    } else if (typeInfo instanceof ArrayTypeInfo) {
+                        processingInfoStack.push(((ArrayTypeInfo) typeInfo).component());
+                    } else if (typeInfo instanceof MapTypeInfo) {
+                        MapTypeInfo mapTypeInfo = (MapTypeInfo) typeInfo;
+                        processingInfoStack.push(mapTypeInfo.keyType());
+                        processingInfoStack.push(mapTypeInfo.valueType());
+                    }
+                }
+            }
+            currentLevel = nextLevel;
+        }
+    }
+
+    /**
+     * Types already parsed, e.g. annotated types, are always resolved.
+     *
+     * @param typeElement null if not found, which is left to the parser.
+     */
+    boolean shouldResolve(ConcreteTypeInfo typeInfo, @Nullable TypeElement typeElement) {
+        if (isUnrestricted() || typeElement == null) {
+            return true;
+        }
+        return ctx.getTypeStore().getTypeDef(typeInfo.qualifiedName()) != null
+            || (matches(typeElement) && (maxDepth < 0 || typesWithinMaxDepth.contains(typeInfo.qualifiedName())));
+    }
+
+    /**
+     * Record a dependency reached within max depth, its type definition is to be walked at the next level.
+     *
+     * @return false if the type should not be resolved, so that its type arguments are not walked either.
+     */
+    private boolean indexDependency(ConcreteTypeInfo typeInfo, TypeDefParser typeDefParser,
+                                    @SideEffect Set<TypeDef> visitedDefs, @SideEffect List<TypeDef> nextLevel) {
+        String qualifiedName = typeInfo.qualifiedName();
+        TypeDef typeDef = ctx.getTypeStore().getTypeDef(qualifiedName);
+        if (typeDef == null && !typeInfo.shallowResolved()) {
+            TypeElement typeElement = ctx.getProcessingEnv().getElementUtils().getTypeElement(qualifiedName);
+            if (typeElement != null) {
+                if (!matches(typeElement)) {
+                    return false;
+                }
+                typesWithinMaxDepth.add(qualifiedName);
+                typeDef = typeDefParser.parse(typeElement);
+            }
+        }
+        if (typeDef != null && visitedDefs.add(typeDef)) {
+            nextLevel.add(typeDef);
+        }
+        return true;
+    }
+
+    private static void pushComponentTypes(TypeDef typeDef, @SideEffect Deque<TypeInfo> processingInfoStack) {
+        if (typeDef instanceof ClassDef) {
+            ClassDef classDef = (ClassDef) typeDef;
+            for (FieldComponentInfo fieldComponentInfo : classDef.components()) {
+                processingInfoStack.push(fieldComponentInfo.type());
+            }
+            processingInfoStack.addAll(classDef.supertypes());
+        } else if (typeDef instanceof EnumDef) {
+            for (EnumValueInfo component : ((EnumDef) typeDef).components()) {
+                processingInfoStack.push(component.type());
+            }
+        }
+    }
+
+    private boolean isUnrestricted() {
+        return maxDepth < 0 && packages.isEmpty() && !sourceOnly;
+    }
+
+    private boolean matches(TypeElement typeElement) {
+        if (!packages.isEmpty() && !isInPackages(typeElement.getQualifiedName().toString())) {
+            return false;
+        }
+        if (!sourceOnly) {
+            return true;
+        }
+        Trees trees = ctx.getTrees();
+        return trees != null && trees.getPath(typeElement) != null;
+    }
+
+    private boolean isInPackages(String qualifiedName) {
+        for (String packageName : packages) {
+            if (qualifiedName.startsWith(packageName)
+                && qualifiedName.length() > packageName.length() && qualifiedName.charAt(packageName.length()) == '.') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
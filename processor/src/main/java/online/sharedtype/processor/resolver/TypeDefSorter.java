@@ -0,0 +1,206 @@
+package online.sharedtype.processor.resolver;
+
+import online.sharedtype.processor.context.Context;
+import online.sharedtype.processor.domain.ArrayTypeInfo;
+import online.sharedtype.processor.domain.ClassDef;
+import online.sharedtype.processor.domain.ConcreteTypeInfo;
+import online.sharedtype.processor.domain.EnumDef;
+import online.sharedtype.processor.domain.EnumValueInfo;
+import online.sharedtype.processor.domain.FieldComponentInfo;
+import online.sharedtype.processor.domain.MapTypeInfo;
+import online.sharedtype.processor.domain.TypeDef;
+import online.sharedtype.processor.domain.TypeInfo;
+import online.sharedtype.support.annotation.SideEffect;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Sort resolved type definitions topologically, so that a type definition comes after its dependencies.
+ * <br>
+ * Strongly connected components, i.e. types with cyclic dependencies, are found by Tarjan's algorithm and kept together.
+ * Depth-first search starts from annotated types in their order, and follows dependencies in declaration order,
+ * so that the result only depends on annotated types and the type graph, regardless of the resolver implementation.
+ * <br>
+ * Sorting is incremental: once all types reachable from an annotated type are resolved, the annotated type can be visited,
+ * and type definitions are passed on component by component, while the rest of the graph is still being resolved.
+ *
+ * @author Cause Chung
+ */
+final class TypeDefSorter {
+    private final Context ctx;
+
+    TypeDefSorter(Context ctx) {
+        this.ctx = ctx;
+    }
+
+    /**
+     * @param expectedSize expected number of type definitions.
+     * @param consumer receives type definitions in sorted order.
+     */
+    Sorting start(int expectedSize, Consumer<TypeDef> consumer) {
+        return new Sorting(expectedSize, consumer);
+    }
+
+    final class Sorting {
+        private final Map<String, Node> nodesByName;
+        private final Consumer<TypeDef> consumer;
+        private final Deque<Node> componentStack = new ArrayDeque<>();
+        /* Nodes of iterative depth-first search, each keeps position of its next edge. */
+        private final Deque<Node> callStack = new ArrayDeque<>();
+        private final Deque<TypeInfo> processingInfoStack = new ArrayDeque<>();
+        private int nextIndex;
+
+        private Sorting(int expectedSize, Consumer<TypeDef> consumer) {
+            this.nodesByName = new HashMap<>(expectedSize * 2);
+            this.consumer = consumer;
+        }
+
+        /**
+         * Add a resolved type definition. Dependencies not added are ignored.
+         */
+        void add(TypeDef typeDef) {
+            nodesByName.putIfAbsent(typeDef.qualifiedName(), new Node(typeDef));
+        }
+
+        /**
+         * Pass on type definitions reachable from the given one, which have not been passed on.
+         * All type definitions reachable from it must have been added.
+         */
+        void visit(TypeDef typeDef) {
+            Node root = nodesByName.get(typeDef.qualifiedName());
+            if (root == null || root.index >= 0) {
+                return;
+            }
+            discover(root);
+            while (!callStack.isEmpty()) {
+                Node node = callStack.peek();
+                if (node.nextEdge < node.edges.length) {
+                    Node next = node.edges[node.nextEdge++];
+                    if (next.index < 0) {
+                        discover(next);
+                    } else if (next.onStack) {
+                        node.lowLink = Math.min(node.lowLink, next.index);
+                    }
+                    continue;
+                }
+                callStack.pop();
+                if (!callStack.isEmpty()) {
+                    Node parent = callStack.peek();
+                    parent.lowLink = Math.min(parent.lowLink, node.lowLink);
+                }
+                if (node.lowLink == node.index) {
+                    emitComponent(node);
+                }
+            }
+        }
+
+        private void discover(Node node) {
+            node.index = node.lowLink = nextIndex++;
+            node.edges = dependencies(node.typeDef);
+            componentStack.push(node);
+            node.onStack = true;
+            callStack.push(node);
+        }
+
+        /**
+         * Types in a component are passed on in the order they are discovered.
+         */
+        private void emitComponent(Node root) {
+            List<Node> component = new ArrayList<>();
+            Node node;
+            do {
+                node = componentStack.pop();
+                node.onStack = false;
+                component.add(node);
+            } while (node != root);
+            component.sort((a, b) -> Integer.compare(a.index, b.index));
+
+            if (component.size() > 1 || contains(root.edges, root)) {
+                StringBuilder names = new StringBuilder();
+                for (Node n : component) {
+                    names.append(names.length() == 0 ? "" : ", ").append(n.typeDef.qualifiedName());
+                }
+                ctx.info("Types with cyclic dependencies: %s", names.toString());
+            }
+            for (Node n : component) {
+                consumer.accept(n.typeDef);
+            }
+        }
+
+        /**
+         * @return nodes of dependency type definitions in declaration order, supertypes first.
+         */
+        private Node[] dependencies(TypeDef typeDef) {
+            if (typeDef instanceof ClassDef) {
+                ClassDef classDef = (ClassDef) typeDef;
+                List<FieldComponentInfo> components = classDef.components();
+                for (int j = components.size() - 1; j >= 0; j--) {
+                    processingInfoStack.push(components.get(j).type());
+                }
+                pushReversed(classDef.supertypes(), processingInfoStack);
+            } else if (typeDef instanceof EnumDef) {
+                List<EnumValueInfo> components = ((EnumDef) typeDef).components();
+                for (int j = components.size() - 1; j >= 0; j--) {
+                    processingInfoStack.push(components.get(j).type());
+                }
+            }
+
+            List<Node> dependencies = new ArrayList<>();
+            while (!processingInfoStack.isEmpty()) {
+                TypeInfo typeInfo = processingInfoStack.pop();
+                if (typeInfo instanceof ConcreteTypeInfo) {
+                    ConcreteTypeInfo concreteTypeInfo = (ConcreteTypeInfo) typeInfo;
+                    if (concreteTypeInfo.opaque()) {
+                        continue;
+                    }
+                    Node dependency = nodesByName.get(concreteTypeInfo.qualifiedName());
+                    if (dependency != null && !dependencies.contains(dependency)) {
+                        dependencies.add(dependency);
+                    }
+                    pushReversed(concreteTypeInfo.typeArgs(), processingInfoStack);
+                } else if (typeInfo instanceof ArrayTypeInfo) {
+                    processingInfoStack.push(((ArrayTypeInfo) typeInfo).component());
+                } else if (typeInfo instanceof MapTypeInfo) {
+                    MapTypeInfo mapTypeInfo = (MapTypeInfo) typeInfo;
+                    processingInfoStack.push(mapTypeInfo.valueType());
+                    processingInfoStack.push(mapTypeInfo.keyType());
+                }
+            }
+            return dependencies.toArray(new Node[0]);
+        }
+    }
+
+    private static final class Node {
+        final TypeDef typeDef;
+        int index = -1;
+        int lowLink;
+        boolean onStack;
+        Node[] edges;
+        int nextEdge;
+
+        Node(TypeDef typeDef) {
+            this.typeDef = typeDef;
+        }
+    }
+
+    private static void pushReversed(List<? extends TypeInfo> typeInfos, @SideEffect Deque<TypeInfo> stack) {
+        for (int i = typeInfos.size() - 1; i >= 0; i--) {
+            stack.push(typeInfos.get(i));
+        }
+    }
+
+    private static boolean contains(Node[] arr, Node value) {
+        for (Node n : arr) {
+            if (n == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
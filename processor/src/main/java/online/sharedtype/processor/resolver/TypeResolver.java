@@ -4,9 +4,12 @@ import online.sharedtype.SharedType;
 import online.sharedtype.processor.domain.TypeDef;
 import online.sharedtype.processor.domain.TypeInfo;
 import online.sharedtype.processor.context.Context;
+import online.sharedtype.processor.context.ProcessingMetrics;
 import online.sharedtype.processor.parser.TypeDefParser;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Resolve required but unknown type information after initial parsing stage.
@@ -20,10 +23,26 @@ public interface TypeResolver {
      *
      * @param typeDefs the types discovered in initial parsing stage, they are types directly annotated with {@link SharedType}.
      * @return all type definitions needed to generate output. Including dependency types, e.g. referenced types, super types.
+     *         A type definition comes after its dependencies, except for types with cyclic dependencies.
      */
-    List<TypeDef> resolve(List<TypeDef> typeDefs);
+    default List<TypeDef> resolve(List<TypeDef> typeDefs) {
+        List<TypeDef> resolvedDefs = new ArrayList<>(typeDefs.size() * 2);
+        resolve(typeDefs, resolvedDefs::add);
+        return resolvedDefs;
+    }
+
+    /**
+     * Resolve {@link TypeInfo} by traversing all types, and pass on type definitions as soon as they and their dependencies are resolved.
+     * Type definitions are passed on in the same order as returned by {@link #resolve(List)}.
+     *
+     * @param typeDefs the types discovered in initial parsing stage, they are types directly annotated with {@link SharedType}.
+     * @param consumer receives all type definitions needed to generate output, called in the calling thread.
+     */
+    void resolve(List<TypeDef> typeDefs, Consumer<TypeDef> consumer);
 
     static TypeResolver create(Context ctx, TypeDefParser typeDefParser) {
-        return new LoopTypeResolver(ctx, typeDefParser);
+        TypeResolver resolver = new LoopTypeResolver(ctx, typeDefParser);
+        ProcessingMetrics metrics = ctx.getMetrics();
+        return metrics == null ? resolver : new MeteredTypeResolver(metrics, resolver);
     }
 }
@@ -0,0 +1,42 @@
+package online.sharedtype.processor.writer;
+
+import online.sharedtype.processor.context.Context;
+import online.sharedtype.processor.domain.TypeDef;
+import online.sharedtype.processor.domain.TypeDefBinaryEncoder;
+
+import java.io.IOException;
+
+/**
+ * Writes all type definitions to a single binary metadata file,
+ * which is smaller and faster to write and read back than {@link JavaSerializationFileWriter} output.
+ *
+ * @see online.sharedtype.processor.domain.TypeDefBinaryReader
+ * @author Cause Chung
+ */
+final class BinaryTypeFileWriter implements TypeWriter {
+    private final Context ctx;
+    private TypeDefBinaryEncoder encoder;
+
+    BinaryTypeFileWriter(Context ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void begin() {
+        encoder = new TypeDefBinaryEncoder();
+    }
+
+    @Override
+    public void accept(TypeDef typeDef) {
+        encoder.add(typeDef);
+    }
+
+    @Override
+    public void end() throws IOException {
+        try {
+            ctx.writeAggregatedClassOutput(ctx.getProps().getBinaryOutputFileName(), encoder.toByteArray());
+        } finally {
+            encoder = null;
+        }
+    }
+}
@@ -4,7 +4,6 @@ import lombok.RequiredArgsConstructor;
 import online.sharedtype.processor.domain.TypeDef;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.Set;
 
 /**
@@ -16,9 +15,23 @@ final class CompositeWriter implements TypeWriter{
     private final Set<TypeWriter> writers;
 
     @Override
-    public void write(List<TypeDef> typeDefs) throws IOException {
+    public void begin() throws IOException {
         for (TypeWriter writer : writers) {
-            writer.write(typeDefs);
+            writer.begin();
+        }
+    }
+
+    @Override
+    public void accept(TypeDef typeDef) throws IOException {
+        for (TypeWriter writer : writers) {
+            writer.accept(typeDef);
+        }
+    }
+
+    @Override
+    public void end() throws IOException {
+        for (TypeWriter writer : writers) {
+            writer.end();
         }
     }
 }
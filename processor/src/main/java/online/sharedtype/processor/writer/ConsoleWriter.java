@@ -4,8 +4,6 @@ import lombok.RequiredArgsConstructor;
 import online.sharedtype.processor.domain.TypeDef;
 import online.sharedtype.processor.context.Context;
 
-import java.util.List;
-
 /**
  *
  * @author Cause Chung
@@ -15,7 +13,7 @@ final class ConsoleWriter implements TypeWriter{
     private final Context ctx;
 
     @Override
-    public void write(List<TypeDef> typeDefs) {
-        typeDefs.forEach(d-> ctx.info("Write type: %s%s", System.lineSeparator(), d));
+    public void accept(TypeDef typeDef) {
+        ctx.info("Write type: %s%s", System.lineSeparator(), typeDef);
     }
 }
@@ -4,13 +4,11 @@ import online.sharedtype.processor.domain.TypeDef;
 import online.sharedtype.processor.context.Context;
 import online.sharedtype.support.exception.SharedTypeException;
 
-import javax.annotation.processing.Filer;
-import javax.tools.FileObject;
-import javax.tools.StandardLocation;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
-import java.io.OutputStream;
-import java.util.List;
 
 /**
  * For internal usage, where integration tests deserialize the generated files back to objects.
@@ -18,22 +16,23 @@ import java.util.List;
  * @author Cause Chung
  */
 final class JavaSerializationFileWriter implements TypeWriter {
-    private final Filer filer;
+    private final Context ctx;
+    private final Elements elements;
 
     JavaSerializationFileWriter(Context ctx) {
-        this.filer = ctx.getProcessingEnv().getFiler();
+        this.ctx = ctx;
+        this.elements = ctx.getProcessingEnv().getElementUtils();
     }
 
     @Override
-    public void write(List<TypeDef> typeDefs) {
+    public void accept(TypeDef typeDef) {
         try {
-            for (TypeDef typeDef : typeDefs) {
-                FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", typeDef.qualifiedName() + ".ser");
-                try(OutputStream outputStream = file.openOutputStream();
-                    ObjectOutputStream oos = new ObjectOutputStream(outputStream)) {
-                    oos.writeObject(typeDef);
-                }
+            TypeElement originatingElement = elements.getTypeElement(typeDef.qualifiedName());
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(512);
+            try(ObjectOutputStream oos = new ObjectOutputStream(outputStream)) {
+                oos.writeObject(typeDef);
             }
+            ctx.writeClassOutput(typeDef.qualifiedName() + ".ser", outputStream.toByteArray(), originatingElement);
         } catch (IOException e) {
             throw new SharedTypeException("Failed to write to file,", e);
         }
@@ -0,0 +1,75 @@
+package online.sharedtype.processor.writer;
+
+import lombok.RequiredArgsConstructor;
+import online.sharedtype.processor.context.ProcessingMetrics;
+import online.sharedtype.processor.domain.TypeDef;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Record time of a writer and bytes of files it has written.
+ * Time spent in all calls from {@link #begin()} to {@link #end()} is recorded as one call.
+ *
+ * @see ProcessingMetrics
+ * @author Cause Chung
+ */
+@RequiredArgsConstructor
+final class MeteredTypeWriter implements TypeWriter {
+    private final ProcessingMetrics metrics;
+    private final TypeWriter delegate;
+    /** Index ranges of output files created by the delegate, as writers are called alternately. */
+    private final List<int[]> outputFileRanges = new ArrayList<>();
+    private long nanos;
+
+    @Override
+    public void begin() throws IOException {
+        outputFileRanges.clear();
+        nanos = 0;
+        int outputFileIndex = metrics.outputFileCount();
+        long start = System.nanoTime();
+        delegate.begin();
+        nanos += System.nanoTime() - start;
+        recordOutputFiles(outputFileIndex);
+    }
+
+    @Override
+    public void accept(TypeDef typeDef) throws IOException {
+        int outputFileIndex = metrics.outputFileCount();
+        long start = System.nanoTime();
+        delegate.accept(typeDef);
+        nanos += System.nanoTime() - start;
+        recordOutputFiles(outputFileIndex);
+    }
+
+    @Override
+    public void end() throws IOException {
+        int outputFileIndex = metrics.outputFileCount();
+        long start = System.nanoTime();
+        delegate.end();
+        nanos += System.nanoTime() - start;
+        recordOutputFiles(outputFileIndex);
+
+        String name = delegate.getClass().getSimpleName();
+        metrics.recordStage(name + ".write", nanos);
+        long bytes = 0;
+        for (int[] range : outputFileRanges) {
+            bytes += metrics.outputBytes(range[0], range[1]);
+        }
+        metrics.addCounter(name + ".bytesWritten", bytes);
+    }
+
+    private void recordOutputFiles(int fromIndex) {
+        int toIndex = metrics.outputFileCount();
+        if (toIndex == fromIndex) {
+            return;
+        }
+        int[] lastRange = outputFileRanges.isEmpty() ? null : outputFileRanges.get(outputFileRanges.size() - 1);
+        if (lastRange != null && lastRange[1] == fromIndex) {
+            lastRange[1] = toIndex;
+        } else {
+            outputFileRanges.add(new int[]{fromIndex, toIndex});
+        }
+    }
+}
@@ -3,6 +3,8 @@ package online.sharedtype.processor.writer;
 import online.sharedtype.processor.domain.TypeDef;
 import online.sharedtype.processor.context.Context;
 import online.sharedtype.processor.context.OutputTarget;
+import online.sharedtype.processor.context.ProcessingMetrics;
+import online.sharedtype.processor.context.Props;
 import online.sharedtype.processor.writer.render.TemplateRenderer;
 
 import java.io.IOException;
@@ -12,17 +14,51 @@ import java.util.Set;
 
 /**
  * Writes type meta to target output.
+ * <br>
+ * Type definitions are written in a streaming way: {@link #begin()}, then {@link #accept(TypeDef)} for each type definition,
+ * and {@link #end()}, so that output can be written while types are still being resolved,
+ * without holding all type definitions and output data in memory.
  *
  * @author Cause Chung
  */
 public interface TypeWriter {
+    /**
+     * Start writing, called once before any type definition is accepted.
+     *
+     * @throws IOException if underlying IO error occurs
+     */
+    default void begin() throws IOException {
+    }
+
+    /**
+     * Write a type definition. Type definitions are accepted after their dependencies, except for types with cyclic dependencies.
+     *
+     * @param typeDef type definition required to generate output, assumed to be completed.
+     * @throws IOException if underlying IO error occurs
+     */
+    void accept(TypeDef typeDef) throws IOException;
+
+    /**
+     * Finish writing, called once after all type definitions are accepted.
+     *
+     * @throws IOException if underlying IO error occurs
+     */
+    default void end() throws IOException {
+    }
+
     /**
      * Writes type meta to target output.
      *
      * @param typeDefs type definitions required to generate output, assumed to be completed.
      * @throws IOException if underlying IO error occurs
      */
-    void write(List<TypeDef> typeDefs) throws IOException;
+    default void write(List<TypeDef> typeDefs) throws IOException {
+        begin();
+        for (TypeDef typeDef : typeDefs) {
+            accept(typeDef);
+        }
+        end();
+    }
 
     static TypeWriter create(Context ctx) {
         Set<TypeWriter> writers = new HashSet<>(OutputTarget.values().length);
@@ -32,11 +68,24 @@ public interface TypeWriter {
         if (ctx.getProps().getTargets().contains(OutputTarget.JAVA_SERIALIZED)) {
             writers.add(new JavaSerializationFileWriter(ctx));
         }
+        if (ctx.getProps().getTargets().contains(OutputTarget.BINARY)) {
+            writers.add(new BinaryTypeFileWriter(ctx));
+        }
 
-        TemplateRenderer renderer = TemplateRenderer.create();
         if (ctx.getProps().getTargets().contains(OutputTarget.TYPESCRIPT)) {
+            TemplateRenderer renderer = ctx.getProps().getTypescript().getRendererType() == Props.Typescript.RendererType.STREAMING
+                ? new TypescriptStreamingRenderer()
+                : TemplateRenderer.create();
             writers.add(new TypescriptTypeFileWriter(ctx, renderer));
         }
+        ProcessingMetrics metrics = ctx.getMetrics();
+        if (metrics != null) {
+            Set<TypeWriter> meteredWriters = new HashSet<>(writers.size());
+            for (TypeWriter writer : writers) {
+                meteredWriters.add(new MeteredTypeWriter(metrics, writer));
+            }
+            writers = meteredWriters;
+        }
         return new CompositeWriter(writers);
     }
 }
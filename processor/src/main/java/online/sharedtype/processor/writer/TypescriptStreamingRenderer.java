@@ -0,0 +1,95 @@
+package online.sharedtype.processor.writer;
+
+import online.sharedtype.processor.writer.TypescriptTypeFileWriter.EnumUnionExpr;
+import online.sharedtype.processor.writer.TypescriptTypeFileWriter.InterfaceExpr;
+import online.sharedtype.processor.writer.TypescriptTypeFileWriter.PropertyExpr;
+import online.sharedtype.processor.writer.render.Template;
+import online.sharedtype.processor.writer.render.TemplateRenderer;
+import online.sharedtype.support.exception.SharedTypeException;
+import online.sharedtype.support.exception.SharedTypeInternalError;
+import online.sharedtype.support.utils.Tuple;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes typescript interfaces and enum unions directly to the writer, without reflective lookup and intermediate strings of templates.
+ * Output is the same as rendered by typescript Mustache templates.
+ *
+ * @author Cause Chung
+ */
+final class TypescriptStreamingRenderer implements TemplateRenderer {
+    @Override
+    public void loadTemplates(Template... templates) {
+        for (Template template : templates) {
+            if (!template.equals(Template.TEMPLATE_INTERFACE) && !template.equals(Template.TEMPLATE_ENUM_UNION)) {
+                throw new SharedTypeInternalError(String.format("Template not supported: '%s'", template));
+            }
+        }
+    }
+
+    @Override
+    public void render(Writer writer, List<Tuple<Template, Object>> data) {
+        try {
+            for (Tuple<Template, Object> tuple : data) {
+                Template template = tuple.a();
+                if (template.equals(Template.TEMPLATE_INTERFACE)) {
+                    writeInterface(writer, (InterfaceExpr) tuple.b());
+                } else if (template.equals(Template.TEMPLATE_ENUM_UNION)) {
+                    writeEnumUnion(writer, (EnumUnionExpr) tuple.b());
+                } else {
+                    throw new SharedTypeInternalError(String.format("Template not supported: '%s'", template));
+                }
+            }
+        } catch (IOException e) {
+            throw new SharedTypeException("Failed to write,", e);
+        }
+    }
+
+    private static void writeInterface(Writer writer, InterfaceExpr expr) throws IOException {
+        writer.write("export interface ");
+        writer.write(expr.name);
+        if (!expr.typeParameters.isEmpty()) {
+            writer.write('<');
+            writeJoined(writer, expr.typeParameters, ", ");
+            writer.write('>');
+        }
+        writer.write(' ');
+        if (!expr.supertypes.isEmpty()) {
+            writer.write("extends ");
+            writeJoined(writer, expr.supertypes, ", ");
+            writer.write(' ');
+        }
+        writer.write("{\n");
+        for (PropertyExpr property : expr.properties) {
+            writer.write("    ");
+            writer.write(property.name);
+            if (property.optional) {
+                writer.write('?');
+            }
+            writer.write(": ");
+            writer.write(property.type);
+            writer.write(property.propDelimiter);
+            writer.write('\n');
+        }
+        writer.write("}\n");
+    }
+
+    private static void writeEnumUnion(Writer writer, EnumUnionExpr expr) throws IOException {
+        writer.write("export type ");
+        writer.write(expr.name);
+        writer.write(" = ");
+        writeJoined(writer, expr.values, " | ");
+        writer.write(";\n");
+    }
+
+    private static void writeJoined(Writer writer, List<String> values, String delimiter) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(delimiter);
+            }
+            writer.write(values.get(i));
+        }
+    }
+}
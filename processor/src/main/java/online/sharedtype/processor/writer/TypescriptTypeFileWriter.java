@@ -8,27 +8,38 @@ import online.sharedtype.processor.domain.Constants;
 import online.sharedtype.processor.domain.EnumDef;
 import online.sharedtype.processor.domain.EnumValueInfo;
 import online.sharedtype.processor.domain.FieldComponentInfo;
+import online.sharedtype.processor.domain.MapTypeInfo;
 import online.sharedtype.processor.domain.TypeDef;
 import online.sharedtype.processor.domain.TypeInfo;
 import online.sharedtype.processor.domain.TypeVariableInfo;
 import online.sharedtype.processor.context.Context;
+import online.sharedtype.processor.context.Props;
 import online.sharedtype.support.annotation.SideEffect;
 import online.sharedtype.support.exception.SharedTypeInternalError;
 import online.sharedtype.support.utils.Tuple;
 import online.sharedtype.processor.writer.render.Template;
 import online.sharedtype.processor.writer.render.TemplateRenderer;
 
+import javax.annotation.Nullable;
+import javax.lang.model.element.TypeElement;
 import javax.lang.model.util.Elements;
-import javax.tools.FileObject;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
 /**
@@ -63,17 +74,38 @@ final class TypescriptTypeFileWriter implements TypeWriter {
         PREDEFINED_TYPE_NAME_MAPPINGS = Collections.unmodifiableMap(tempMap);
     }
 
+    private static final String NUMBER_TYPE_NAME = "number";
+    private static final String STRING_TYPE_NAME = "string";
+    private static final String TYPE_DECLARATION_FILE_EXTENSION = ".d.ts";
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+    /** Number of types rendered at once, or by a parallel task. */
+    private static final int PARALLEL_CHUNK_SIZE = 256;
+
     private final Context ctx;
     private final Elements elements;
     private final Map<ConcreteTypeInfo, String> typeNameMappings;
     private final TemplateRenderer renderer;
     private final char interfacePropertyDelimiter;
+    private final boolean perPackage;
+
+    /* State of writing from begin() to end(). */
+    private Writer writer;
+    private Map<String, TypeDef> simpleNames;
+    private List<TypeDef> chunk;
+    private Map<TypeInfo, String> typeExprCache;
+    private Map<Object, String> constantExprCache;
+    private Deque<ForkJoinTask<String>> renderingTasks;
+    private boolean duplicateFound;
+    /* Per-package layout, outputs are kept in the order packages are first seen. */
+    private Map<String, PackageOutput> packageOutputs;
+    private Map<String, String> packageNames;
 
     TypescriptTypeFileWriter(Context ctx, TemplateRenderer renderer) {
         this.ctx = ctx;
         elements = ctx.getProcessingEnv().getElementUtils();
         this.renderer = renderer;
         interfacePropertyDelimiter = ctx.getProps().getTypescript().getInterfacePropertyDelimiter();
+        perPackage = ctx.getProps().getTypescript().getOutputLayout() == Props.Typescript.OutputLayout.PER_PACKAGE;
 
         typeNameMappings = new HashMap<>(PREDEFINED_TYPE_NAME_MAPPINGS);
         typeNameMappings.put(Constants.OBJECT_TYPE_INFO, ctx.getProps().getTypescript().getJavaObjectMapType());
@@ -84,24 +116,232 @@ final class TypescriptTypeFileWriter implements TypeWriter {
     }
 
     @Override
-    public void write(List<TypeDef> typeDefs) throws IOException {
-        List<Tuple<Template, Object>> data = new ArrayList<>(typeDefs.size());
-        Map<String, TypeDef> simpleNames = new HashMap<>(typeDefs.size());
-        for (TypeDef typeDef : typeDefs) {
-            TypeDef duplicate = simpleNames.get(typeDef.simpleName());
-            if (duplicate != null) {
-                ctx.error("Duplicate names found: %s and %s, which is not allowed in output typescript code." +
-                    " You may use @SharedType(name=\"...\") to rename a type.", typeDef.qualifiedName(), duplicate.qualifiedName());
+    public void begin() throws IOException {
+        simpleNames = new HashMap<>();
+        chunk = new ArrayList<>(PARALLEL_CHUNK_SIZE);
+        typeExprCache = new IdentityHashMap<>();
+        constantExprCache = new HashMap<>();
+        renderingTasks = new ArrayDeque<>();
+        duplicateFound = false;
+        if (perPackage) {
+            packageOutputs = new LinkedHashMap<>();
+            packageNames = new HashMap<>();
+        } else {
+            writer = new StringWriter(OUTPUT_BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * Type definitions are buffered and rendered in chunks, or per package.
+     * Simple names must be unique across packages, as they may be imported to the same file.
+     * If a duplicate name is found, an error is reported and the rest of type definitions are not written.
+     */
+    @Override
+    public void accept(TypeDef typeDef) throws IOException {
+        if (duplicateFound) {
+            return;
+        }
+        TypeDef duplicate = simpleNames.putIfAbsent(typeDef.simpleName(), typeDef);
+        if (duplicate != null) {
+            ctx.error("Duplicate names found: %s and %s, which is not allowed in output typescript code." +
+                " You may use @SharedType(name=\"...\") to rename a type.", typeDef.qualifiedName(), duplicate.qualifiedName());
+            duplicateFound = true;
+            chunk.clear();
+            return;
+        }
+        if (perPackage) {
+            addToPackageOutput(typeDef);
+            return;
+        }
+        chunk.add(typeDef);
+        if (chunk.size() == PARALLEL_CHUNK_SIZE) {
+            flushChunk();
+        }
+    }
+
+    @Override
+    public void end() throws IOException {
+        try {
+            if (duplicateFound) {
+                return; // keep the previous output rather than writing a partial one
+            }
+            if (perPackage) {
+                writePackageOutputs();
                 return;
             }
-            simpleNames.put(typeDef.simpleName(), typeDef);
+            if (!chunk.isEmpty()) {
+                flushChunk();
+            }
+            while (!renderingTasks.isEmpty()) {
+                writer.write(renderingTasks.poll().join());
+            }
+            ctx.writeSourceOutput(ctx.getProps().getTypescript().getOutputFileName(), writer.toString().getBytes(Charset.defaultCharset())); // TODO: abstract up
+        } finally {
+            writer = null;
+            simpleNames = null;
+            chunk = null;
+            typeExprCache = null;
+            constantExprCache = null;
+            renderingTasks = null;
+            packageOutputs = null;
+            packageNames = null;
+        }
+    }
+
+    private void addToPackageOutput(TypeDef typeDef) {
+        String packageName = packageOf(typeDef.qualifiedName());
+        PackageOutput output = packageOutputs.get(packageName);
+        if (output == null) {
+            output = new PackageOutput(packageName);
+            packageOutputs.put(packageName, output);
+        }
+        output.data.addAll(toRenderData(Collections.singletonList(typeDef), typeExprCache));
+        if (typeDef instanceof ClassDef) {
+            ClassDef classDef = (ClassDef) typeDef;
+            for (TypeInfo supertype : classDef.supertypes()) {
+                addImports(supertype, output);
+            }
+            for (FieldComponentInfo component : classDef.components()) {
+                addImports(component.type(), output);
+            }
+        }
+    }
+
+    /**
+     * Import types referenced by name from other packages, in the same way as {@link #buildTypeExpr}.
+     */
+    private void addImports(TypeInfo typeInfo, @SideEffect PackageOutput output) {
+        if (typeInfo instanceof ConcreteTypeInfo) {
+            ConcreteTypeInfo concreteTypeInfo = (ConcreteTypeInfo) typeInfo;
+            if (concreteTypeInfo.opaque()) {
+                return;
+            }
+            if (!typeNameMappings.containsKey(concreteTypeInfo) && ctx.getTypeStore().getTypeDef(concreteTypeInfo.qualifiedName()) != null) {
+                addImport(concreteTypeInfo, output);
+            }
+            for (TypeInfo typeArg : concreteTypeInfo.typeArgs()) {
+                addImports(typeArg, output);
+            }
+        } else if (typeInfo instanceof ArrayTypeInfo) {
+            addImports(((ArrayTypeInfo) typeInfo).component(), output);
+        } else if (typeInfo instanceof MapTypeInfo) {
+            MapTypeInfo mapTypeInfo = (MapTypeInfo) typeInfo;
+            TypeInfo keyType = mapTypeInfo.keyType();
+            if (keyType instanceof ConcreteTypeInfo
+                && ctx.getTypeStore().getTypeDef(((ConcreteTypeInfo) keyType).qualifiedName()) instanceof EnumDef) {
+                addImport((ConcreteTypeInfo) keyType, output);
+            }
+            addImports(mapTypeInfo.valueType(), output);
+        }
+    }
+
+    private void addImport(ConcreteTypeInfo typeInfo, @SideEffect PackageOutput output) {
+        String packageName = packageOf(typeInfo.qualifiedName());
+        if (packageName.equals(output.packageName)) {
+            return;
+        }
+        Set<String> names = output.imports.get(packageName);
+        if (names == null) {
+            names = new TreeSet<>();
+            output.imports.put(packageName, names);
+        }
+        names.add(typeInfo.simpleName());
+    }
+
+    private String packageOf(String qualifiedName) {
+        String packageName = packageNames.get(qualifiedName);
+        if (packageName == null) {
+            TypeElement typeElement = elements.getTypeElement(qualifiedName);
+            packageName = elements.getPackageOf(typeElement).getQualifiedName().toString();
+            packageNames.put(qualifiedName, packageName);
+        }
+        return packageName;
+    }
+
+    /**
+     * Packages are rendered to in-memory buffers concurrently if parallel, files are written in the calling thread.
+     */
+    private void writePackageOutputs() throws IOException {
+        if (ctx.isParallel() && packageOutputs.size() > 1) {
+            Map<PackageOutput, ForkJoinTask<String>> tasks = new LinkedHashMap<>(packageOutputs.size() * 2);
+            for (PackageOutput output : packageOutputs.values()) {
+                tasks.put(output, ctx.getForkJoinPool().submit(() -> renderPackageOutput(output)));
+            }
+            for (Map.Entry<PackageOutput, ForkJoinTask<String>> entry : tasks.entrySet()) {
+                writePackageFile(entry.getKey().packageName, entry.getValue().join());
+            }
+        } else {
+            for (PackageOutput output : packageOutputs.values()) {
+                writePackageFile(output.packageName, renderPackageOutput(output));
+            }
+        }
+    }
+
+    private String renderPackageOutput(PackageOutput output) throws IOException {
+        StringWriter writer = new StringWriter(output.data.size() * 256);
+        for (Map.Entry<String, Set<String>> entry : output.imports.entrySet()) {
+            writer.write("import type { ");
+            writer.write(String.join(", ", entry.getValue()));
+            writer.write(" } from \"./");
+            writer.write(moduleName(entry.getKey()));
+            writer.write("\";\n");
+        }
+        if (!output.imports.isEmpty()) {
+            writer.write('\n');
+        }
+        renderer.render(writer, output.data);
+        return writer.toString();
+    }
+
+    private void writePackageFile(String packageName, String content) throws IOException {
+        ctx.writeSourceOutput(moduleName(packageName) + TYPE_DECLARATION_FILE_EXTENSION, content.getBytes(Charset.defaultCharset()));
+    }
+
+    /**
+     * @return module name of a package, types in the default package are in the module of the output file.
+     */
+    private String moduleName(String packageName) {
+        if (packageName.isEmpty()) {
+            String outputFileName = ctx.getProps().getTypescript().getOutputFileName();
+            return outputFileName.endsWith(TYPE_DECLARATION_FILE_EXTENSION)
+                ? outputFileName.substring(0, outputFileName.length() - TYPE_DECLARATION_FILE_EXTENSION.length())
+                : outputFileName;
+        }
+        return packageName;
+    }
+
+    /**
+     * Type definitions are converted in the calling thread, as conversion accesses javac and the type store,
+     * which may be in use by the resolver. If parallel, the converted chunks are rendered to in-memory buffers concurrently,
+     * and written in the original order. A single chunk is rendered directly.
+     */
+    private void flushChunk() throws IOException {
+        boolean inParallel = ctx.isParallel() && (!renderingTasks.isEmpty() || chunk.size() == PARALLEL_CHUNK_SIZE);
+        List<Tuple<Template, Object>> data = toRenderData(chunk, typeExprCache);
+        chunk.clear();
+        if (inParallel) {
+            renderingTasks.add(ctx.getForkJoinPool().submit(() -> {
+                StringWriter buffer = new StringWriter(data.size() * 256);
+                renderer.render(buffer, data);
+                return buffer.toString();
+            }));
+            while (!renderingTasks.isEmpty() && renderingTasks.peek().isDone()) {
+                writer.write(renderingTasks.poll().join());
+            }
+        } else {
+            renderer.render(writer, data);
+        }
+    }
+
+    private List<Tuple<Template, Object>> toRenderData(List<TypeDef> typeDefs, Map<TypeInfo, String> typeExprCache) {
+        List<Tuple<Template, Object>> data = new ArrayList<>(typeDefs.size());
+        for (TypeDef typeDef : typeDefs) {
             if (typeDef instanceof EnumDef) {
                 EnumDef enumDef = (EnumDef) typeDef;
                 List<String> values = new ArrayList<>(enumDef.components().size());
                 for (EnumValueInfo component : enumDef.components()) {
                     try {
-                        String result = elements.getConstantExpression(component.value());
-                        values.add(result);
+                        values.add(toConstantExpr(component.value()));
                     } catch (IllegalArgumentException e) {
                         throw new SharedTypeInternalError(String.format(
                             "Failed to get constant expression for enum value: %s of type %s in enum: %s", component.value(), component.type(), enumDef), e);
@@ -112,25 +352,49 @@ final class TypescriptTypeFileWriter implements TypeWriter {
                 ClassDef classDef = (ClassDef) typeDef;
                 InterfaceExpr value = new InterfaceExpr(
                     classDef.simpleName(),
-                    classDef.typeVariables().stream().map(this::toTypeExpr).collect(Collectors.toList()),
-                    classDef.supertypes().stream().map(this::toTypeExpr).collect(Collectors.toList()),
-                    classDef.components().stream().map(this::toPropertyExpr).collect(Collectors.toList())
+                    classDef.typeVariables().stream().map(t -> toTypeExpr(t, typeExprCache)).collect(Collectors.toList()),
+                    classDef.supertypes().stream().filter(t -> !isOpaque(t)).map(t -> toTypeExpr(t, typeExprCache)).collect(Collectors.toList()),
+                    classDef.components().stream().map(f -> toPropertyExpr(f, typeExprCache)).collect(Collectors.toList())
                 );
                 data.add(Tuple.of(Template.TEMPLATE_INTERFACE, value));
             }
         }
+        return data;
+    }
 
-        FileObject file = ctx.createSourceOutput(ctx.getProps().getTypescript().getOutputFileName()); // TODO: abstract up
-        try (OutputStream outputStream = file.openOutputStream();
-             Writer writer = new OutputStreamWriter(outputStream)) {
-            renderer.render(writer, data);
+    /**
+     * Literals are rendered once per value. Strings of printable ASCII characters that need no escaping are quoted directly,
+     * the same as {@link Elements#getConstantExpression(Object)} does.
+     */
+    private String toConstantExpr(Object value) {
+        String expr = constantExprCache.get(value);
+        if (expr == null) {
+            expr = value instanceof String && isPlainAscii((String) value)
+                ? '"' + (String) value + '"'
+                : elements.getConstantExpression(value);
+            constantExprCache.put(value, expr);
+        }
+        return expr;
+    }
+
+    private static boolean isPlainAscii(String value) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < ' ' || c > '~' || c == '"' || c == '\\' || c == '\'') {
+                return false;
+            }
         }
+        return true;
     }
 
-    private PropertyExpr toPropertyExpr(FieldComponentInfo field) {
+    private static boolean isOpaque(TypeInfo typeInfo) {
+        return typeInfo instanceof ConcreteTypeInfo && ((ConcreteTypeInfo) typeInfo).opaque();
+    }
+
+    private PropertyExpr toPropertyExpr(FieldComponentInfo field, Map<TypeInfo, String> typeExprCache) {
         return new PropertyExpr(
             field.name(),
-            toTypeExpr(field.type()),
+            toTypeExpr(field.type(), typeExprCache),
             interfacePropertyDelimiter,
             field.optional(),
             false,
@@ -138,20 +402,32 @@ final class TypescriptTypeFileWriter implements TypeWriter {
         );
     }
 
-    private String toTypeExpr(TypeInfo typeInfo) {
-        StringBuilder typeExprBuilder = new StringBuilder();
-        buildTypeExprRecursively(typeInfo, typeExprBuilder);
-        return typeExprBuilder.toString();
+    /**
+     * Type expressions are cached by type info identity, a non-generic type is represented by only one instance.
+     */
+    private String toTypeExpr(TypeInfo typeInfo, @SideEffect Map<TypeInfo, String> typeExprCache) {
+        String typeExpr = typeExprCache.get(typeInfo);
+        if (typeExpr == null) {
+            StringBuilder typeExprBuilder = new StringBuilder();
+            buildTypeExpr(typeInfo, typeExprBuilder, typeExprCache);
+            typeExpr = typeExprBuilder.toString();
+            typeExprCache.put(typeInfo, typeExpr);
+        }
+        return typeExpr;
     }
 
-    private void buildTypeExprRecursively(TypeInfo typeInfo, @SideEffect StringBuilder nameBuilder) { // TODO: abstract up
+    private void buildTypeExpr(TypeInfo typeInfo, @SideEffect StringBuilder nameBuilder, Map<TypeInfo, String> typeExprCache) { // TODO: abstract up
         if (typeInfo instanceof ConcreteTypeInfo) {
             ConcreteTypeInfo concreteTypeInfo = (ConcreteTypeInfo) typeInfo;
+            if (concreteTypeInfo.opaque()) {
+                nameBuilder.append(typeNameMappings.get(Constants.OBJECT_TYPE_INFO));
+                return;
+            }
             nameBuilder.append(typeNameMappings.getOrDefault(concreteTypeInfo, concreteTypeInfo.simpleName()));
             if (!concreteTypeInfo.typeArgs().isEmpty()) {
                 nameBuilder.append("<");
                 for (TypeInfo typeArg : concreteTypeInfo.typeArgs()) {
-                    buildTypeExprRecursively(typeArg, nameBuilder);
+                    nameBuilder.append(toTypeExpr(typeArg, typeExprCache));
                     nameBuilder.append(", ");
                 }
                 nameBuilder.setLength(nameBuilder.length() - 2);
@@ -162,9 +438,56 @@ final class TypescriptTypeFileWriter implements TypeWriter {
             nameBuilder.append(typeVariableInfo.name());
         } else if (typeInfo instanceof ArrayTypeInfo) {
             ArrayTypeInfo arrayTypeInfo = (ArrayTypeInfo) typeInfo;
-            buildTypeExprRecursively(arrayTypeInfo.component(), nameBuilder);
+            nameBuilder.append(toTypeExpr(arrayTypeInfo.component(), typeExprCache));
             nameBuilder.append("[]");
+        } else if (typeInfo instanceof MapTypeInfo) {
+            MapTypeInfo mapTypeInfo = (MapTypeInfo) typeInfo;
+            String enumKeyName = toEnumKeyName(mapTypeInfo.keyType());
+            if (enumKeyName != null) {
+                nameBuilder.append("Partial<Record<").append(enumKeyName);
+            } else {
+                nameBuilder.append("Record<").append(toKeyTypeExpr(mapTypeInfo.keyType()));
+            }
+            nameBuilder.append(", ");
+            nameBuilder.append(toTypeExpr(mapTypeInfo.valueType(), typeExprCache));
+            nameBuilder.append(enumKeyName != null ? ">>" : ">");
+        }
+    }
+
+    /**
+     * Typescript record keys can only be string, number or a union of literals, i.e. an enum type.
+     * Other key types fall back to string, as they are commonly serialized as strings.
+     */
+    private String toKeyTypeExpr(TypeInfo keyType) {
+        if (keyType instanceof ConcreteTypeInfo && NUMBER_TYPE_NAME.equals(typeNameMappings.get((ConcreteTypeInfo) keyType))) {
+            return NUMBER_TYPE_NAME;
         }
+        return STRING_TYPE_NAME;
+    }
+
+    /**
+     * A record keyed by an enum type requires all enum values as keys in Typescript, while a java map may contain any of them.
+     * So it is wrapped in "Partial".
+     *
+     * @return the enum type name, or null if the key type is not an enum.
+     */
+    @Nullable
+    private String toEnumKeyName(TypeInfo keyType) {
+        if (keyType instanceof ConcreteTypeInfo) {
+            ConcreteTypeInfo concreteTypeInfo = (ConcreteTypeInfo) keyType;
+            if (ctx.getTypeStore().getTypeDef(concreteTypeInfo.qualifiedName()) instanceof EnumDef) {
+                return concreteTypeInfo.simpleName();
+            }
+        }
+        return null;
+    }
+
+    @RequiredArgsConstructor
+    private static final class PackageOutput {
+        final String packageName;
+        final List<Tuple<Template, Object>> data = new ArrayList<>();
+        /** Names of imported types by package. */
+        final Map<String, Set<String>> imports = new TreeMap<>();
     }
 
     @RequiredArgsConstructor
@@ -0,0 +1,54 @@
+package online.sharedtype.processor.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class ResolutionCounterTest {
+    private final ConcreteTypeInfo aTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.A").resolved(false).build();
+    private final ConcreteTypeInfo bTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.B").resolved(false).build();
+    private final ConcreteTypeInfo listOfA = ConcreteTypeInfo.builder().qualifiedName("java.util.List").typeArgs(List.of(aTypeInfo)).build();
+
+    @Test
+    void classDefResolvedWhenAllDependenciesResolved() {
+        ClassDef classDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.Abc")
+            .components(List.of(
+                FieldComponentInfo.builder().name("field1").type(listOfA).build(),
+                FieldComponentInfo.builder().name("field2").type(new ArrayTypeInfo(aTypeInfo)).build(),
+                FieldComponentInfo.builder().name("field3").type(new MapTypeInfo(Constants.STRING_TYPE_INFO, bTypeInfo)).build()
+            ))
+            .supertypes(List.of(bTypeInfo))
+            .build();
+        assertThat(classDef.resolved()).isFalse();
+        assertThat(listOfA.resolved()).isFalse();
+
+        aTypeInfo.markShallowResolved();
+        assertThat(listOfA.resolved()).isTrue();
+        assertThat(classDef.resolved()).isFalse();
+
+        bTypeInfo.markOpaque();
+        assertThat(classDef.resolved()).isTrue();
+    }
+
+    @Test
+    void dependencyResolvedBeforeFirstCheck() {
+        EnumDef enumDef = EnumDef.builder().qualifiedName("com.github.cuzfrog.EnumA")
+            .enumValueInfos(List.of(new EnumValueInfo(aTypeInfo, "A1"), new EnumValueInfo(aTypeInfo, "A2")))
+            .build();
+        aTypeInfo.markShallowResolved();
+        aTypeInfo.markShallowResolved();
+        assertThat(enumDef.resolved()).isTrue();
+    }
+
+    @Test
+    void sharedDependencyCountedOncePerReference() {
+        EnumDef enumDef = EnumDef.builder().qualifiedName("com.github.cuzfrog.EnumA")
+            .enumValueInfos(List.of(new EnumValueInfo(aTypeInfo, "A1"), new EnumValueInfo(aTypeInfo, "A2")))
+            .build();
+        assertThat(enumDef.resolved()).isFalse();
+        aTypeInfo.markShallowResolved();
+        assertThat(enumDef.resolved()).isTrue();
+    }
+}
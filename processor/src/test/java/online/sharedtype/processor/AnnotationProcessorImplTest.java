@@ -2,20 +2,30 @@ package online.sharedtype.processor;
 
 import online.sharedtype.processor.domain.ClassDef;
 import online.sharedtype.processor.domain.Constants;
+import online.sharedtype.processor.domain.TypeDef;
 import online.sharedtype.processor.context.ContextMocks;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import online.sharedtype.processor.parser.TypeDefParser;
 import online.sharedtype.processor.resolver.TypeResolver;
 import online.sharedtype.processor.writer.TypeWriter;
 
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.PackageElement;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -45,12 +55,77 @@ class AnnotationProcessorImplTest {
         when(typeDefParser.parse(typeElement2)).thenReturn(null);
 
         var dependencyDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.Dependency").simpleName("Dependency").build();
-        when(typeResolver.resolve(List.of(classDef1))).thenReturn(List.of(classDef1, dependencyDef));
+        mockResolution(List.of(classDef1), List.of(classDef1, dependencyDef));
 
         processor.doProcess(Set.of(typeElement1, typeElement2));
+        verify(typeResolver, never()).resolve(any(), any());
+        verify(typeWriter, never()).begin();
 
-        verify(typeWriter).write(List.of(classDef1, dependencyDef));
+        processor.doFinish();
+        InOrder inOrder = inOrder(typeWriter);
+        inOrder.verify(typeWriter).begin();
+        inOrder.verify(typeWriter).accept(classDef1);
+        inOrder.verify(typeWriter).accept(dependencyDef);
+        inOrder.verify(typeWriter).end();
+        verify(ctxMocks.getContext()).addOriginatingElement(typeElement1);
+        verify(ctxMocks.getContext()).addOriginatingElement(typeElement2);
         verify(ctxMocks.getContext()).warning(messageCaptor.capture(), eq("com.github.cuzfrog.IgnoredClass"), eq(Constants.ANNOTATION_QUALIFIED_NAME));
         assertThat(messageCaptor.getValue()).contains("is ignored or invalid");
     }
+
+    @Test
+    void skipAnnotatedPackage() {
+        var packageElement = mock(PackageElement.class);
+        processor.doProcess(Set.of(packageElement));
+        verify(typeDefParser, never()).parse(any());
+        verify(ctxMocks.getContext(), never()).addOriginatingElement(any());
+    }
+
+    @Test
+    void resolveAndWriteOnceInFinalRound() throws Exception {
+        var typeElement1 = ctxMocks.typeElement("com.github.cuzfrog.Abc").element();
+        var typeElement2 = ctxMocks.typeElement("com.github.cuzfrog.Generated").element();
+        var classDef1 = ClassDef.builder().qualifiedName("com.github.cuzfrog.Abc").simpleName("Abc").build();
+        var classDef2 = ClassDef.builder().qualifiedName("com.github.cuzfrog.Generated").simpleName("Generated").build();
+        when(typeDefParser.parse(typeElement1)).thenReturn(classDef1);
+        when(typeDefParser.parse(typeElement2)).thenReturn(classDef2);
+        mockResolution(List.of(classDef1, classDef2), List.of(classDef1, classDef2));
+
+        var annotation = ctxMocks.typeElement(Constants.ANNOTATION_QUALIFIED_NAME).element();
+        when(annotation.getQualifiedName().contentEquals(Constants.ANNOTATION_QUALIFIED_NAME)).thenReturn(true);
+        var round1 = mock(RoundEnvironment.class);
+        doReturn(Set.of(typeElement1)).when(round1).getElementsAnnotatedWith(annotation);
+        var round2 = mock(RoundEnvironment.class);
+        doReturn(Set.of(typeElement2)).when(round2).getElementsAnnotatedWith(annotation);
+        var finalRound = mock(RoundEnvironment.class);
+        when(finalRound.processingOver()).thenReturn(true);
+
+        processor.process(Set.of(annotation), round1);
+        processor.process(Set.of(annotation), round2);
+        verify(typeWriter, never()).begin();
+
+        processor.process(Set.of(), finalRound);
+        verify(typeResolver).resolve(eq(List.of(classDef1, classDef2)), any());
+        verify(typeWriter).accept(classDef1);
+        verify(typeWriter).accept(classDef2);
+        verify(typeWriter).end();
+    }
+
+    @Test
+    void skipWritingIfNoTypeDiscovered() throws Exception {
+        var finalRound = mock(RoundEnvironment.class);
+        when(finalRound.processingOver()).thenReturn(true);
+
+        processor.process(Set.of(), finalRound);
+        verify(typeResolver, never()).resolve(any(), any());
+        verify(typeWriter, never()).begin();
+    }
+
+    private void mockResolution(List<TypeDef> typeDefs, List<TypeDef> resolvedDefs) {
+        doAnswer(invoc -> {
+            Consumer<TypeDef> consumer = invoc.getArgument(1);
+            resolvedDefs.forEach(consumer);
+            return null;
+        }).when(typeResolver).resolve(eq(typeDefs), any());
+    }
 }
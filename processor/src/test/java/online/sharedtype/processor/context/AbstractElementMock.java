@@ -13,6 +13,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Fail.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -62,12 +63,14 @@ abstract class AbstractElementMock<E extends Element, T extends TypeMirror, M ex
         Name typeElementName = mock(Name.class);
         when(typeElement.getQualifiedName()).thenReturn(typeElementName);
         when(typeElementName.toString()).thenReturn(qualifiedName);
+        when(typeElementName.contentEquals(any())).then(invoc -> qualifiedName.contentEquals(invoc.<CharSequence>getArgument(0)));
     }
 
     static void setSimpleName(Element element, String simpleName) {
         Name elementName = mock(Name.class);
         when(element.getSimpleName()).thenReturn(elementName);
         when(elementName.toString()).thenReturn(simpleName);
+        when(elementName.contentEquals(any())).then(invoc -> simpleName.contentEquals(invoc.<CharSequence>getArgument(0)));
     }
 
     @SuppressWarnings("unchecked")
@@ -0,0 +1,124 @@
+package online.sharedtype.processor.context;
+
+import online.sharedtype.SharedType;
+import online.sharedtype.processor.domain.Constants;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Name;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class ConfigTest {
+    private final ContextMocks ctxMocks = new ContextMocks();
+    private final TypeElementMock typeElement = ctxMocks.typeElement("com.github.cuzfrog.Abc");
+
+    @Test
+    void defaultConfigWithoutAnnotation() {
+        Config config = Config.of(typeElement.element(), Config.DEFAULT_INCLUDES);
+        assertThat(config.getName()).isEqualTo("Abc");
+        assertThat(config.getQualifiedName()).isEqualTo("com.github.cuzfrog.Abc");
+        assertThat(config.includes(SharedType.ComponentType.FIELDS)).isTrue();
+        assertThat(config.includes(SharedType.ComponentType.ACCESSORS)).isTrue();
+        assertThat(config.includes(SharedType.ComponentType.CONSTANTS)).isTrue();
+    }
+
+    @Test
+    void readAnnotationValues() {
+        AnnotationMirror anno = mockAnnotation(Map.of(
+            "name", "Renamed",
+            "includes", List.of(SharedType.ComponentType.FIELDS)
+        ));
+        AnnotationMirror otherAnno = mockAnnotationOf("java.lang.Deprecated");
+        when(typeElement.element().getAnnotationMirrors()).then(invoc -> List.of(otherAnno, anno));
+
+        Config config = Config.of(typeElement.element(), Config.DEFAULT_INCLUDES);
+        assertThat(config.getName()).isEqualTo("Renamed");
+        assertThat(config.includes(SharedType.ComponentType.FIELDS)).isTrue();
+        assertThat(config.includes(SharedType.ComponentType.ACCESSORS)).isFalse();
+    }
+
+    @Test
+    void inheritPackageIncludes() {
+        PackageElement packageElement = mock(PackageElement.class);
+        AnnotationMirror packageAnno = mockAnnotation(Map.of(
+            "name", "Ignored",
+            "includes", List.of(SharedType.ComponentType.ACCESSORS, SharedType.ComponentType.CONSTANTS)
+        ));
+        when(packageElement.getAnnotationMirrors()).then(invoc -> List.of(packageAnno));
+        Set<SharedType.ComponentType> packageIncludes = Config.packageIncludes(packageElement);
+        assertThat(packageIncludes).containsExactlyInAnyOrder(SharedType.ComponentType.ACCESSORS, SharedType.ComponentType.CONSTANTS);
+
+        AnnotationMirror typeAnno = mockAnnotation(Map.of("name", "Renamed"));
+        when(typeElement.element().getAnnotationMirrors()).then(invoc -> List.of(typeAnno));
+        Config config = Config.of(typeElement.element(), packageIncludes);
+        assertThat(config.getName()).isEqualTo("Renamed");
+        assertThat(config.includes(SharedType.ComponentType.FIELDS)).isFalse();
+        assertThat(config.includes(SharedType.ComponentType.ACCESSORS)).isTrue();
+    }
+
+    @Test
+    void defaultPackageIncludesWithoutAnnotation() {
+        assertThat(Config.packageIncludes(mock(PackageElement.class))).isSameAs(Config.DEFAULT_INCLUDES);
+    }
+
+    private static AnnotationMirror mockAnnotation(Map<String, Object> values) {
+        AnnotationMirror anno = mockAnnotationOf(Constants.ANNOTATION_QUALIFIED_NAME);
+        Map<ExecutableElement, AnnotationValue> elementValues = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            ExecutableElement attribute = mock(ExecutableElement.class);
+            Name attributeName = mockName(entry.getKey());
+            when(attribute.getSimpleName()).thenReturn(attributeName);
+            Object value = entry.getValue();
+            if (value instanceof List<?> list) {
+                value = list.stream().map(c -> mockAnnotationValue(mockEnumConstant((SharedType.ComponentType) c))).toList();
+            }
+            AnnotationValue annotationValue = mockAnnotationValue(value);
+            elementValues.put(attribute, annotationValue);
+        }
+        when(anno.getElementValues()).then(invoc -> elementValues);
+        return anno;
+    }
+
+    private static AnnotationMirror mockAnnotationOf(String qualifiedName) {
+        AnnotationMirror anno = mock(AnnotationMirror.class);
+        DeclaredType annoType = mock(DeclaredType.class);
+        TypeElementMock annoElement = new ContextMocks().typeElement(qualifiedName);
+        when(anno.getAnnotationType()).thenReturn(annoType);
+        when(annoType.asElement()).thenReturn(annoElement.element());
+        return anno;
+    }
+
+    private static AnnotationValue mockAnnotationValue(Object value) {
+        AnnotationValue annotationValue = mock(AnnotationValue.class);
+        when(annotationValue.getValue()).thenReturn(value);
+        return annotationValue;
+    }
+
+    private static Element mockEnumConstant(SharedType.ComponentType componentType) {
+        VariableElement enumConstant = mock(VariableElement.class);
+        Name name = mockName(componentType.name());
+        when(enumConstant.getSimpleName()).thenReturn(name);
+        return enumConstant;
+    }
+
+    private static Name mockName(String name) {
+        Name mockName = mock(Name.class);
+        when(mockName.toString()).thenReturn(name);
+        when(mockName.contentEquals(any())).then(invoc -> name.contentEquals(invoc.<CharSequence>getArgument(0)));
+        return mockName;
+    }
+}
@@ -11,6 +11,7 @@ import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
@@ -33,6 +34,7 @@ public final class ContextMocks {
         when(processingEnv.getTypeUtils()).thenReturn(types);
         when(context.getTypeStore()).thenReturn(typeStore);
         when(context.getTrees()).thenReturn(trees);
+        when(context.getConfig(any())).then(invoc -> Config.of(invoc.getArgument(0), Config.DEFAULT_INCLUDES));
     }
 
     public ContextMocks() {
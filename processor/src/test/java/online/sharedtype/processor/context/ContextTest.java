@@ -0,0 +1,181 @@
+package online.sharedtype.processor.context;
+
+import online.sharedtype.SharedType;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+final class ContextTest {
+    private final Props props = Props.builder()
+        .optionalAnno(Override.class)
+        .accessorGetterPrefixes(Set.of())
+        .arraylikeTypeQualifiedNames(Set.of())
+        .maplikeTypeQualifiedNames(Set.of())
+        .ignoredTypeQualifiedNames(Set.of())
+        .resolutionPackages(Set.of())
+        .incrementalEnabled(true)
+        .build();
+
+    @Test
+    void degradeIfProcessingEnvironmentIsWrapped() {
+        ProcessingEnvironment processingEnv = mock(ProcessingEnvironment.class);
+        Messager messager = mock(Messager.class);
+        when(processingEnv.getElementUtils()).thenReturn(mock(Elements.class));
+        when(processingEnv.getTypeUtils()).thenReturn(mock(Types.class));
+        when(processingEnv.getMessager()).thenReturn(messager);
+
+        Context ctx = new Context(new WrappedProcessingEnvironment(processingEnv), props);
+
+        assertThat(ctx.getTrees()).isNull();
+        assertThat(ctx.getTypeDefCache()).isNull();
+        verify(messager).printMessage(eq(Diagnostic.Kind.WARNING), contains("Compiler Tree API is not available"));
+        verify(messager).printMessage(eq(Diagnostic.Kind.WARNING), contains("Property 'sharedtype.incremental.enabled' is ignored"));
+    }
+
+    @Test
+    void ignoreTypesByResolvedElements() {
+        ProcessingEnvironment processingEnv = mock(ProcessingEnvironment.class);
+        Elements elements = mock(Elements.class);
+        when(processingEnv.getElementUtils()).thenReturn(elements);
+        when(processingEnv.getTypeUtils()).thenReturn(mock(Types.class));
+        when(processingEnv.getMessager()).thenReturn(mock(Messager.class));
+        TypeElement ignoredType = mock(TypeElement.class);
+        TypeElement annotatedType = mock(TypeElement.class);
+        TypeElement otherType = mock(TypeElement.class);
+        when(elements.getTypeElement("com.github.cuzfrog.Ignored")).thenReturn(ignoredType);
+        when(annotatedType.getAnnotation(SharedType.Ignore.class)).thenReturn(mock(SharedType.Ignore.class));
+        Props props = Props.builder()
+            .arraylikeTypeQualifiedNames(Set.of())
+            .maplikeTypeQualifiedNames(Set.of())
+            .ignoredTypeQualifiedNames(Set.of("com.github.cuzfrog.Ignored", "com.github.cuzfrog.NotFound"))
+            .build();
+
+        Context ctx = new Context(processingEnv, props);
+
+        assertThat(ctx.isTypeIgnored(ignoredType)).isTrue();
+        assertThat(ctx.isTypeIgnored(annotatedType)).isTrue();
+        assertThat(ctx.isTypeIgnored(otherType)).isFalse();
+        verify(ignoredType, never()).getQualifiedName();
+        verify(otherType, never()).getQualifiedName();
+    }
+
+    @Test
+    void unwrapJavacProcessingEnvironment() {
+        AtomicReference<Context> ctxRef = new AtomicReference<>();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, null, List.of("-proc:only"), null, List.of(source("class A {}")));
+        task.setProcessors(List.of(new CapturingProcessor(env -> ctxRef.set(new Context(new WrappedProcessingEnvironment(env), props)))));
+        assertThat(task.call()).isTrue();
+
+        Context ctx = ctxRef.get();
+        assertThat(ctx.getTrees()).isNotNull();
+        assertThat(ctx.getTypeDefCache()).isNotNull();
+    }
+
+    private static JavaFileObject source(String content) {
+        return new SimpleJavaFileObject(URI.create("string:///A.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return content;
+            }
+        };
+    }
+
+    /** Similar to Gradle's incremental processing environment, which delegates to javac's. */
+    private static final class WrappedProcessingEnvironment implements ProcessingEnvironment {
+        private final ProcessingEnvironment delegate;
+
+        private WrappedProcessingEnvironment(ProcessingEnvironment delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Map<String, String> getOptions() {
+            return delegate.getOptions();
+        }
+
+        @Override
+        public Messager getMessager() {
+            return delegate.getMessager();
+        }
+
+        @Override
+        public Filer getFiler() {
+            return delegate.getFiler();
+        }
+
+        @Override
+        public Elements getElementUtils() {
+            return delegate.getElementUtils();
+        }
+
+        @Override
+        public Types getTypeUtils() {
+            return delegate.getTypeUtils();
+        }
+
+        @Override
+        public SourceVersion getSourceVersion() {
+            return delegate.getSourceVersion();
+        }
+
+        @Override
+        public Locale getLocale() {
+            return delegate.getLocale();
+        }
+    }
+
+    @SupportedAnnotationTypes("*")
+    private static final class CapturingProcessor extends AbstractProcessor {
+        private final Consumer<ProcessingEnvironment> onInit;
+
+        private CapturingProcessor(Consumer<ProcessingEnvironment> onInit) {
+            this.onInit = onInit;
+        }
+
+        @Override
+        public synchronized void init(ProcessingEnvironment processingEnv) {
+            super.init(processingEnv);
+            onInit.accept(processingEnv);
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latest();
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package online.sharedtype.processor.context;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.FileObject;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class ProcessingMetricsTest {
+    private final ProcessingMetrics metrics = new ProcessingMetrics();
+
+    @Test
+    void writeJson() throws Exception {
+        metrics.recordStage("TypeDefParser.parse", 1_500_000);
+        metrics.recordStage("TypeDefParser.parse", 500_000);
+        metrics.recordStage("TypeResolver.resolve", 3_000_000);
+        metrics.addCounter("TypeStore.typeDefHits", 3);
+        metrics.addCounter("TypeStore.typeDefHits", 2);
+
+        StringWriter writer = new StringWriter();
+        metrics.writeJson(writer);
+        assertThat(writer.toString()).isEqualTo(
+            "{\n" +
+            "  \"stages\": [\n" +
+            "    {\"name\": \"TypeDefParser.parse\", \"calls\": 2, \"millis\": 2.000},\n" +
+            "    {\"name\": \"TypeResolver.resolve\", \"calls\": 1, \"millis\": 3.000}\n" +
+            "  ],\n" +
+            "  \"counters\": {\n" +
+            "    \"TypeStore.typeDefHits\": 5\n" +
+            "  }\n" +
+            "}\n"
+        );
+    }
+
+    @Test
+    void writeEmptyJson() throws Exception {
+        StringWriter writer = new StringWriter();
+        metrics.writeJson(writer);
+        assertThat(writer.toString()).isEqualTo("{\n  \"stages\": [],\n  \"counters\": {}\n}\n");
+    }
+
+    @Test
+    void sumOutputBytesSinceIndex(@TempDir Path tempDir) throws Exception {
+        metrics.recordOutputFile(fileObject(Files.write(tempDir.resolve("a"), new byte[3])));
+        int index = metrics.outputFileCount();
+        metrics.recordOutputFile(fileObject(Files.write(tempDir.resolve("b"), new byte[5])));
+        metrics.recordOutputFile(fileObject(Files.write(tempDir.resolve("c"), new byte[7])));
+
+        assertThat(metrics.outputBytesSince(index)).isEqualTo(12);
+        assertThat(metrics.outputBytesSince(0)).isEqualTo(15);
+    }
+
+    private static FileObject fileObject(Path path) {
+        FileObject fileObject = mock(FileObject.class);
+        when(fileObject.toUri()).thenReturn(path.toUri());
+        return fileObject;
+    }
+}
@@ -34,11 +34,22 @@ final class PropsFactoryTest {
             "java.io.Serializable",
             "java.lang.Record"
         );
+        assertThat(props.getResolutionMaxDepth()).isEqualTo(-1);
+        assertThat(props.getResolutionPackages()).isEmpty();
+        assertThat(props.isResolutionSourceOnly()).isFalse();
+        assertThat(props.getParallelism()).isEqualTo(1);
+        assertThat(props.isIncrementalEnabled()).isFalse();
+        assertThat(props.getIncrementalCacheFileName()).isEqualTo("sharedtype-typedef.cache");
+        assertThat(props.isMetricsEnabled()).isFalse();
+        assertThat(props.getMetricsOutputFileName()).isEqualTo("sharedtype-metrics.json");
+        assertThat(props.getBinaryOutputFileName()).isEqualTo("sharedtype-types.bin");
 
         Props.Typescript typescriptProps = props.getTypescript();
         assertThat(typescriptProps.getOutputFileName()).isEqualTo("types.d.ts");
+        assertThat(typescriptProps.getOutputLayout()).isEqualTo(Props.Typescript.OutputLayout.SINGLE_FILE);
         assertThat(typescriptProps.getInterfacePropertyDelimiter()).isEqualTo(';');
         assertThat(typescriptProps.getJavaObjectMapType()).isEqualTo("any");
+        assertThat(typescriptProps.getRendererType()).isEqualTo(Props.Typescript.RendererType.MUSTACHE);
     }
 
     @Test
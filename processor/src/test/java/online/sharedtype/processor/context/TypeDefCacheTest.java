@@ -0,0 +1,143 @@
+package online.sharedtype.processor.context;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.TreePath;
+import online.sharedtype.processor.domain.ClassDef;
+import online.sharedtype.processor.domain.ConcreteTypeInfo;
+import online.sharedtype.processor.domain.Constants;
+import online.sharedtype.processor.domain.FieldComponentInfo;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaFileObject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class TypeDefCacheTest {
+    private final ContextMocks prevCtxMocks = new ContextMocks();
+    private final TypeDefCache prevCache = new TypeDefCache(prevCtxMocks.getContext());
+    private final ContextMocks ctxMocks = new ContextMocks();
+    private final TypeDefCache cache = new TypeDefCache(ctxMocks.getContext());
+
+    private final TypeElement prevElement = prevCtxMocks.typeElement("com.github.cuzfrog.Abc").element();
+    private final TypeElement element = ctxMocks.typeElement("com.github.cuzfrog.Abc").element();
+    private final ConcreteTypeInfo dependencyTypeInfo = ConcreteTypeInfo.builder()
+        .qualifiedName("com.github.cuzfrog.Dependency").simpleName("Dependency").resolved(true).build();
+    private final ClassDef classDef = ClassDef.builder()
+        .qualifiedName("com.github.cuzfrog.Abc").simpleName("Abc")
+        .components(List.of(
+            FieldComponentInfo.builder().name("name").type(Constants.STRING_TYPE_INFO).build(),
+            FieldComponentInfo.builder().name("count").type(Constants.INT_TYPE_INFO).build(),
+            FieldComponentInfo.builder().name("dependency").type(dependencyTypeInfo).build()
+        ))
+        .build();
+
+    @Test
+    void reuseTypeDefIfSourceUnchanged() throws Exception {
+        mockSource(prevCtxMocks, prevElement, "class Abc {}");
+        prevCtxMocks.getTypeStore().saveTypeDef("com.github.cuzfrog.Dependency", ClassDef.builder().qualifiedName("com.github.cuzfrog.Dependency").build());
+        prevCache.put(prevElement, classDef);
+
+        mockSource(ctxMocks, element, "class Abc {}");
+        cache.read(new ByteArrayInputStream(write(prevCache)));
+
+        ClassDef cachedDef = (ClassDef) cache.get(element);
+        assertThat(cachedDef).isEqualTo(classDef);
+        assertThat(cachedDef.components().get(0).type()).isSameAs(Constants.STRING_TYPE_INFO);
+        assertThat(cachedDef.components().get(1).type()).isSameAs(Constants.INT_TYPE_INFO);
+        ConcreteTypeInfo cachedDependencyTypeInfo = (ConcreteTypeInfo) cachedDef.components().get(2).type();
+        assertThat(cachedDependencyTypeInfo).isEqualTo(dependencyTypeInfo);
+        assertThat(cachedDependencyTypeInfo.shallowResolved()).isFalse();
+        assertThat(ctxMocks.getTypeStore().getTypeInfo("com.github.cuzfrog.Dependency")).isSameAs(cachedDependencyTypeInfo);
+
+        assertThat(write(cache)).isEqualTo(write(prevCache));
+    }
+
+    @Test
+    void parseAgainIfSourceChanged() throws Exception {
+        mockSource(prevCtxMocks, prevElement, "class Abc {}");
+        prevCache.put(prevElement, classDef);
+
+        mockSource(ctxMocks, element, "class Abc { int a; }");
+        cache.read(new ByteArrayInputStream(write(prevCache)));
+
+        assertThat(cache.get(element)).isNull();
+    }
+
+    @Test
+    void parseAgainIfDependencyChanged() throws Exception {
+        var prevDependency = prevCtxMocks.typeElement("com.github.cuzfrog.Dependency");
+        var prevElementWithField = prevCtxMocks.typeElement("com.github.cuzfrog.Abc")
+            .withEnclosedElements(prevCtxMocks.declaredTypeVariable("dependency", prevDependency.type()).element())
+            .element();
+        mockSource(prevCtxMocks, prevElementWithField, "class Abc {}");
+        prevCache.put(prevElementWithField, classDef);
+
+        var dependency = ctxMocks.typeElement("com.github.cuzfrog.Dependency");
+        when(ctxMocks.getElements().getTypeElement("com.github.cuzfrog.Dependency")).thenReturn(dependency.element());
+        mockSource(ctxMocks, element, "class Abc {}");
+        cache.read(new ByteArrayInputStream(write(prevCache)));
+        assertThat(cache.get(element)).isEqualTo(classDef);
+
+        when(ctxMocks.getContext().isTypeIgnored(dependency.element())).thenReturn(true);
+        assertThat(cache.get(element)).isNull();
+
+        when(ctxMocks.getContext().isTypeIgnored(dependency.element())).thenReturn(false);
+        when(ctxMocks.getContext().isArraylike(dependency.type())).thenReturn(true);
+        assertThat(cache.get(element)).isNull();
+
+        when(ctxMocks.getElements().getTypeElement("com.github.cuzfrog.Dependency")).thenReturn(null);
+        assertThat(cache.get(element)).isNull();
+    }
+
+    @Test
+    void notCacheTypeWithoutSource() throws Exception {
+        prevCache.put(prevElement, classDef);
+
+        cache.read(new ByteArrayInputStream(write(prevCache)));
+
+        assertThat(cache.get(element)).isNull();
+    }
+
+    @Test
+    void discardCacheIfPropsChanged() throws Exception {
+        mockSource(prevCtxMocks, prevElement, "class Abc {}");
+        prevCache.put(prevElement, classDef);
+
+        var otherCtxMocks = new ContextMocks(Props.builder()
+            .optionalAnno(Override.class)
+            .accessorGetterPrefixes(ctxMocks.getProps().getAccessorGetterPrefixes())
+            .arraylikeTypeQualifiedNames(ctxMocks.getProps().getArraylikeTypeQualifiedNames())
+            .maplikeTypeQualifiedNames(ctxMocks.getProps().getMaplikeTypeQualifiedNames())
+            .ignoredTypeQualifiedNames(ctxMocks.getProps().getIgnoredTypeQualifiedNames())
+            .build());
+        var otherElement = otherCtxMocks.typeElement("com.github.cuzfrog.Abc").element();
+        mockSource(otherCtxMocks, otherElement, "class Abc {}");
+        var otherCache = new TypeDefCache(otherCtxMocks.getContext());
+        otherCache.read(new ByteArrayInputStream(write(prevCache)));
+
+        assertThat(otherCache.get(otherElement)).isNull();
+    }
+
+    private static byte[] write(TypeDefCache cache) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.write(out);
+        return out.toByteArray();
+    }
+
+    private static void mockSource(ContextMocks ctxMocks, TypeElement element, String content) throws IOException {
+        TreePath treePath = mock(TreePath.class);
+        CompilationUnitTree compilationUnit = mock(CompilationUnitTree.class);
+        JavaFileObject sourceFile = mock(JavaFileObject.class);
+        when(ctxMocks.getTrees().getPath(element)).thenReturn(treePath);
+        when(treePath.getCompilationUnit()).thenReturn(compilationUnit);
+        when(compilationUnit.getSourceFile()).thenReturn(sourceFile);
+        when(sourceFile.getCharContent(true)).thenReturn(content);
+    }
+}
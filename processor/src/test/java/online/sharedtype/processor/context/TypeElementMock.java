@@ -1,5 +1,8 @@
 package online.sharedtype.processor.context;
 
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.Tree;
+
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.Modifier;
@@ -10,7 +13,9 @@ import javax.lang.model.element.TypeParameterElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.util.Types;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
 import static org.mockito.Mockito.mock;
@@ -39,8 +44,23 @@ public final class TypeElementMock extends AbstractElementMock<TypeElement, Decl
         return this;
     }
 
+    /**
+     * Also mocks the tree of this type, whose members are the trees mocked for the enclosed elements.
+     */
     public TypeElementMock withEnclosedElements(Element... enclosedElements) {
         when(element.getEnclosedElements()).then(invoc -> Arrays.asList(enclosedElements));
+        ClassTree classTree = mock(ClassTree.class);
+        when(classTree.getMembers()).then(invoc -> {
+            List<Tree> members = new ArrayList<>(enclosedElements.length);
+            for (Element enclosedElement : enclosedElements) {
+                Tree member = ctx.getTrees().getTree(enclosedElement);
+                if (member != null) {
+                    members.add(member);
+                }
+            }
+            return members;
+        });
+        when(ctx.getTrees().getTree(element)).thenReturn(classTree);
         return this;
     }
 
@@ -0,0 +1,80 @@
+package online.sharedtype.processor.context;
+
+import online.sharedtype.processor.domain.ClassDef;
+import online.sharedtype.processor.domain.ConcreteTypeInfo;
+import online.sharedtype.processor.domain.Constants;
+import online.sharedtype.processor.domain.TypeInfo;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.Name;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class TypeStoreTest {
+    private final TypeStore typeStore = new TypeStore();
+
+    @Test
+    void lookupTypeDefByNameOrString() {
+        Name name = mockName("com.github.cuzfrog.Abc");
+        var classDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.Abc").build();
+
+        assertThat(typeStore.getTypeDef(name)).isNull();
+        assertThat(typeStore.contains("com.github.cuzfrog.Abc")).isFalse();
+        typeStore.saveTypeDef(name, classDef);
+
+        assertThat(typeStore.getTypeDef(name)).isSameAs(classDef);
+        assertThat(typeStore.getTypeDef("com.github.cuzfrog.Abc")).isSameAs(classDef);
+        assertThat(typeStore.getTypeDef(mockName("com.github.cuzfrog.Abc"))).isSameAs(classDef);
+        assertThat(typeStore.contains("com.github.cuzfrog.Abc")).isTrue();
+    }
+
+    @Test
+    void containOnlySavedTypes() {
+        Name name = mockName("com.github.cuzfrog.Abc");
+        var typeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.Abc").build();
+
+        assertThat(typeStore.getTypeInfo(name)).isNull();
+        assertThat(typeStore.contains(name)).isFalse();
+        assertThat(typeStore.contains("com.github.cuzfrog.Abc")).isFalse();
+        typeStore.saveTypeInfo(name, typeInfo);
+
+        assertThat(typeStore.contains(name)).isTrue();
+        assertThat(typeStore.contains("com.github.cuzfrog.Abc")).isTrue();
+        assertThat(typeStore.getTypeInfo("com.github.cuzfrog.Abc")).isSameAs(typeInfo);
+    }
+
+    @Test
+    void internGenericTypeInfoByNameOrString() {
+        Name name = mockName("com.github.cuzfrog.Container");
+        List<TypeInfo> typeArgs = List.of(Constants.STRING_TYPE_INFO);
+        var typeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.Container").typeArgs(typeArgs).build();
+
+        assertThat(typeStore.getGenericTypeInfo("com.github.cuzfrog.Container", typeArgs)).isNull();
+        assertThat(typeStore.getGenericTypeInfo(name, typeArgs)).isNull();
+        typeStore.saveGenericTypeInfo(typeInfo);
+
+        assertThat(typeStore.getGenericTypeInfo(name, typeArgs)).isSameAs(typeInfo);
+        assertThat(typeStore.getGenericTypeInfo("com.github.cuzfrog.Container", typeArgs)).isSameAs(typeInfo);
+        assertThat(typeStore.getGenericTypeInfo(name, List.of(Constants.BOXED_INT_TYPE_INFO))).isNull();
+        assertThat(typeStore.contains(name)).isFalse();
+    }
+
+    @Test
+    void growStorage() {
+        for (int i = 0; i < 1000; i++) {
+            typeStore.saveTypeInfo("com.github.cuzfrog.T" + i, ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.T" + i).build());
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertThat(((ConcreteTypeInfo) typeStore.getTypeInfo("com.github.cuzfrog.T" + i)).qualifiedName()).isEqualTo("com.github.cuzfrog.T" + i);
+        }
+    }
+
+    private static Name mockName(String qualifiedName) {
+        Name name = mock(Name.class);
+        when(name.toString()).thenReturn(qualifiedName);
+        return name;
+    }
+}
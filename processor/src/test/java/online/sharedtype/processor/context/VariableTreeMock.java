@@ -2,6 +2,9 @@ package online.sharedtype.processor.context;
 
 import com.sun.source.tree.VariableTree;
 
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Name;
+
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -14,4 +17,11 @@ public final class VariableTreeMock extends AbstractTreeMock<VariableTree, Varia
         when(tree.getInitializer()).thenReturn(initializer.tree);
         return this;
     }
+
+    @Override
+    void fromElement(Element element) {
+        super.fromElement(element);
+        Name name = element.getSimpleName();
+        when(tree.getName()).thenReturn(name);
+    }
 }
@@ -110,6 +110,46 @@ final class ClassTypeDefParserForRecordTest {
         );
     }
 
+    @Test
+    void skipRecordAccessorsWithoutComparingTypes() {
+        var anotherStringType = ctxMocks.typeElement("java.lang.String").type();
+        var accessor = ctxMocks.executable("value").withElementKind(ElementKind.METHOD).withReturnType(anotherStringType);
+        var record = ctxMocks.typeElement("com.github.cuzfrog.Abc")
+            .withElementKind(ElementKind.RECORD)
+            .withEnclosedElements(field1.element(), accessor.element())
+            .withRecordComponentElements(ctxMocks.recordComponent("value", anotherStringType).withAccessor(accessor.element()).element());
+
+        var components = parser.resolveComponents(record.element(), config);
+        assertThat(components).satisfiesExactly(component -> {
+            assertThat(component.a()).describedAs("element").isEqualTo(field1.element());
+            assertThat(component.b()).describedAs("name").isEqualTo("value");
+        });
+        verify(ctxMocks.getTypes(), never()).isSameType(any(), any());
+
+        when(config.includes(SharedType.ComponentType.FIELDS)).thenReturn(false);
+        components = parser.resolveComponents(record.element(), config);
+        assertThat(components).satisfiesExactly(component -> {
+            assertThat(component.a()).describedAs("element").isEqualTo(accessor.element());
+            assertThat(component.b()).describedAs("name").isEqualTo("value");
+        });
+        verify(ctxMocks.getContext(), never()).error(any(), any(Object[].class));
+    }
+
+    @Test
+    void resolveFluentGetterDeclaredBeforeField() {
+        when(config.includes(SharedType.ComponentType.FIELDS)).thenReturn(false);
+        var classElementMock = ctxMocks.typeElement("com.github.cuzfrog.Abc")
+            .withEnclosedElements(
+                method1.element(),
+                field1.element()
+            );
+        var components = parser.resolveComponents(classElementMock.element(), config);
+        assertThat(components).satisfiesExactly(component -> {
+            assertThat(component.a()).describedAs("element").isEqualTo(method1.element());
+            assertThat(component.b()).describedAs("name").isEqualTo("value");
+        });
+    }
+
     @Test
     void nonStaticInnerClassIsInvalid() {
         var typeDef = parser.parse(recordElement.withModifiers().withNestingKind(NestingKind.MEMBER).element());
@@ -2,6 +2,7 @@ package online.sharedtype.processor.parser;
 
 import online.sharedtype.processor.domain.ClassDef;
 import online.sharedtype.processor.context.ContextMocks;
+import online.sharedtype.processor.context.TypeDefCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,6 +29,7 @@ final class CompositeTypeDefParserTest {
     private final ContextMocks ctxMocks = new ContextMocks();
     private @Mock TypeDefParser delegate1;
     private @Mock TypeDefParser delegate2;
+    private @Mock TypeDefCache typeDefCache;
     private CompositeTypeDefParser parser;
 
     private final TypeElement typeElement = ctxMocks.typeElement("com.github.cuzfrog.Abc").element();
@@ -40,8 +42,10 @@ final class CompositeTypeDefParserTest {
             Map.of(
                 ElementKind.RECORD.name(), delegate1,
                 ElementKind.ENUM.name(), delegate2
-        ));
-        when(ctxMocks.getTypeStore().getTypeDef("com.github.cuzfrog.Abc")).thenReturn(null);
+            ),
+            typeDefCache
+        );
+        when(ctxMocks.getTypeStore().getTypeDef(typeElement.getQualifiedName())).thenReturn(null);
     }
 
     @Test
@@ -64,19 +68,41 @@ final class CompositeTypeDefParserTest {
         when(typeElement.getKind()).thenReturn(ElementKind.CONSTRUCTOR);
         assertThatThrownBy(() -> parser.parse(typeElement));
 
-        inOrder.verify(ctxMocks.getContext().getTypeStore()).saveTypeDef("com.github.cuzfrog.Abc", classDef);
+        inOrder.verify(ctxMocks.getContext().getTypeStore()).saveTypeDef(typeElement.getQualifiedName(), classDef);
     }
 
     @Test
     void useCachedTypeDef() {
         var typeDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.Abc").build();
-        when(ctxMocks.getTypeStore().getTypeDef("com.github.cuzfrog.Abc")).thenReturn(typeDef);
+        when(ctxMocks.getTypeStore().getTypeDef(typeElement.getQualifiedName())).thenReturn(typeDef);
 
         assertThat(parser.parse(typeElement)).isSameAs(typeDef);
         verify(delegate1, never()).parse(any());
         verify(delegate2, never()).parse(any());
     }
 
+    @Test
+    void reuseTypeDefFromPreviousCompilation() {
+        when(typeElement.getKind()).thenReturn(ElementKind.RECORD);
+        when(typeDefCache.get(typeElement)).thenReturn(classDef);
+
+        assertThat(parser.parse(typeElement)).isSameAs(classDef);
+        verify(delegate1, never()).parse(any());
+        verify(ctxMocks.getTypeStore()).saveTypeDef(typeElement.getQualifiedName(), classDef);
+        verify(ctxMocks.getContext()).info("Reusing from previous compilation: " + typeElement.getQualifiedName());
+        verify(ctxMocks.getContext(), never()).info("Processing: " + typeElement.getQualifiedName());
+    }
+
+    @Test
+    void cacheParsedTypeDef() {
+        when(typeElement.getKind()).thenReturn(ElementKind.RECORD);
+        when(delegate1.parse(typeElement)).thenReturn(classDef);
+
+        assertThat(parser.parse(typeElement)).isSameAs(classDef);
+        verify(typeDefCache).put(typeElement, classDef);
+        verify(ctxMocks.getContext()).info("Processing: " + typeElement.getQualifiedName());
+    }
+
     @Test
     void ignoreType() {
         when(ctxMocks.getContext().isTypeIgnored(typeElement)).thenReturn(true);
@@ -0,0 +1,143 @@
+package online.sharedtype.processor.parser;
+
+import online.sharedtype.support.exception.SharedTypeInternalError;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class EnumClassFileTest {
+    @Test
+    void readConstructorArgs() throws IOException {
+        EnumClassFile classFile = EnumClassFile.parse(classBytes(EnumLiterals.class));
+
+        assertThat(classFile.constructorArgs("A")).containsExactly(1, 'a', true, (byte) -3, (short) 300, 100000L, 1.5f, 2.5d, "a中", null, 7);
+        assertThat(classFile.constructorArgs("B")).containsExactly(-1, 'b', false, (byte) 0, (short) -1, 0L, 0f, 1d, "", "x", 123456);
+        assertThat(classFile.constructorArgs("C")).containsExactly(
+            EnumClassFile.NON_CONSTANT, 'c', true, (byte) 1, (short) 1, 1L, 2f, 0d, "c", EnumClassFile.NON_CONSTANT, EnumClassFile.NON_CONSTANT);
+        assertThat(classFile.constructorArgs("values")).isNull();
+        assertThat(classFile.constructorArgs("UNKNOWN")).isNull();
+    }
+
+    @Test
+    void readConstantWithBody() throws IOException {
+        EnumClassFile classFile = EnumClassFile.parse(classBytes(EnumWithBody.class));
+
+        assertThat(classFile.constructorArgs("X")).containsExactly("x");
+        assertThat(classFile.constructorArgs("Y")).containsExactly("y");
+        assertThat(classFile.fieldParameterIndex("value")).isEqualTo(0);
+    }
+
+    @Test
+    void stopAtUnsupportedInstruction() throws IOException {
+        EnumClassFile classFile = EnumClassFile.parse(classBytes(EnumWithBranch.class));
+
+        assertThat(classFile.constructorArgs("A")).containsExactly(1);
+        assertThat(classFile.constructorArgs("B")).isNull();
+        assertThat(classFile.constructorArgs("C")).isNull();
+        assertThat(classFile.unsupportedOpcode()).isEqualTo(0x99); // ifeq
+    }
+
+    @Test
+    void findFieldParameterIndices() throws IOException {
+        EnumClassFile classFile = EnumClassFile.parse(classBytes(EnumLiterals.class));
+
+        assertThat(classFile.fieldParameterIndex("intValue")).isEqualTo(0);
+        assertThat(classFile.fieldParameterIndex("longValue")).isEqualTo(5);
+        assertThat(classFile.fieldParameterIndex("doubleValue")).isEqualTo(7);
+        assertThat(classFile.fieldParameterIndex("stringValue")).isEqualTo(8);
+        assertThat(classFile.fieldParameterIndex("derived")).isEqualTo(-1);
+        assertThat(classFile.unsupportedOpcode()).isEqualTo(-1);
+    }
+
+    @Test
+    void rejectNonClassFile() {
+        assertThatThrownBy(() -> EnumClassFile.parse(new byte[16]))
+            .isInstanceOf(SharedTypeInternalError.class)
+            .hasRootCauseMessage("Not a class file.");
+    }
+
+    private static byte[] classBytes(Class<?> clazz) throws IOException {
+        String name = clazz.getName();
+        try (InputStream in = clazz.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+            assert in != null;
+            return in.readAllBytes();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    enum EnumLiterals {
+        A(1, 'a', true, (byte) -3, (short) 300, 100000L, 1.5f, 2.5d, "a中", null, 7),
+        B(-1, 'b', false, (byte) 0, (short) -1, 0L, 0f, 1d, "", "x", 123456),
+        C(Integer.parseInt("1"), 'c', true, (byte) 1, (short) 1, 1L, 2f, 0d, "c", A.name(), A.ordinal()),
+        ;
+
+        private final int intValue;
+        private final char charValue;
+        private final boolean booleanValue;
+        private final byte byteValue;
+        private final short shortValue;
+        private final long longValue;
+        private final float floatValue;
+        private final double doubleValue;
+        private final String stringValue;
+        private final String nullableValue;
+        private final Integer boxedValue;
+        private final int derived;
+
+        EnumLiterals(int intValue, char charValue, boolean booleanValue, byte byteValue, short shortValue, long longValue,
+                     float floatValue, double doubleValue, String stringValue, String nullableValue, Integer boxedValue) {
+            this.intValue = intValue;
+            this.charValue = charValue;
+            this.booleanValue = booleanValue;
+            this.byteValue = byteValue;
+            this.shortValue = shortValue;
+            this.longValue = longValue;
+            this.floatValue = floatValue;
+            this.doubleValue = doubleValue;
+            this.stringValue = stringValue;
+            this.nullableValue = nullableValue;
+            this.boxedValue = boxedValue;
+            this.derived = intValue + 1;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    enum EnumWithBody {
+        X("x") {
+            @Override
+            String describe() {
+                return "body";
+            }
+        },
+        Y("y"),
+        ;
+
+        private final String value;
+
+        EnumWithBody(String value) {
+            this.value = value;
+        }
+
+        String describe() {
+            return value;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    enum EnumWithBranch {
+        A(1),
+        B(Boolean.getBoolean("sharedtype.test") ? 2 : 3),
+        C(4),
+        ;
+
+        private final int value;
+
+        EnumWithBranch(int value) {
+            this.value = value;
+        }
+    }
+}
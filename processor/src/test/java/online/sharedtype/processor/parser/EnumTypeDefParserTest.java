@@ -10,16 +10,20 @@ import online.sharedtype.processor.parser.type.TypeInfoParser;
 
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.type.TypeKind;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 final class EnumTypeDefParserTest {
     private final ContextMocks ctxMocks = new ContextMocks();
     private final TypeInfoParser typeInfoParser = mock(TypeInfoParser.class);
-    private final EnumTypeDefParser parser = new EnumTypeDefParser(ctxMocks.getContext(), typeInfoParser);
+    private final EnumClassFileReader classFileReader = mock(EnumClassFileReader.class);
+    private final EnumTypeDefParser parser = new EnumTypeDefParser(ctxMocks.getContext(), typeInfoParser, classFileReader);
 
     private final TypeElementMock enumType = ctxMocks.typeElement("com.github.cuzfrog.EnumA")
         .withElementKind(ElementKind.ENUM);
@@ -261,4 +265,79 @@ final class EnumTypeDefParserTest {
         verify(ctxMocks.getContext()).error(msgCaptor.capture(), any(Object[].class));
         assertThat(msgCaptor.getValue()).contains("Only literals are supported");
     }
+
+    @Test
+    void failWhenEnumTreeIsNotAvailable() {
+        enumType.withEnclosedElements(
+            ctxMocks.executable("EnumA").withElementKind(ElementKind.CONSTRUCTOR)
+                .withParameters(
+                    ctxMocks.primitiveVariable("field1", TypeKind.INT).withAnnotation(SharedType.EnumValue.class).element()
+                )
+                .element(),
+            ctxMocks.declaredTypeVariable("Value1", enumType.type()).withElementKind(ElementKind.ENUM_CONSTANT).element(),
+            ctxMocks.primitiveVariable("field1", TypeKind.INT).element()
+        );
+        when(ctxMocks.getTrees().getTree(enumType.element())).thenReturn(null);
+
+        EnumDef typeDef = (EnumDef)parser.parse(enumType.element());
+        assertThat(typeDef.components()).isEmpty();
+        verify(ctxMocks.getContext()).error(msgCaptor.capture(), any(Object[].class));
+        assertThat(msgCaptor.getValue()).contains("class file is not found");
+    }
+
+    @Test
+    void readEnumValuesFromClassFile() {
+        enumType.withEnclosedElements(
+            ctxMocks.executable("EnumA").withElementKind(ElementKind.CONSTRUCTOR)
+                .withParameters(
+                    ctxMocks.primitiveVariable("arg0", TypeKind.INT).element(),
+                    ctxMocks.primitiveVariable("arg1", TypeKind.CHAR).element()
+                )
+                .element(),
+            ctxMocks.declaredTypeVariable("Value1", enumType.type()).withElementKind(ElementKind.ENUM_CONSTANT).element(),
+            ctxMocks.declaredTypeVariable("Value2", enumType.type()).withElementKind(ElementKind.ENUM_CONSTANT).element(),
+            ctxMocks.primitiveVariable("field1", TypeKind.INT).element(),
+            ctxMocks.primitiveVariable("field2", TypeKind.CHAR).withAnnotation(SharedType.EnumValue.class).element()
+        );
+        when(ctxMocks.getTrees().getTree(enumType.element())).thenReturn(null);
+        EnumClassFile classFile = mock(EnumClassFile.class);
+        when(classFileReader.read(enumType.element())).thenReturn(classFile);
+        when(classFile.fieldParameterIndex("field2")).thenReturn(1);
+        when(classFile.constructorArgs("Value1")).thenReturn(List.of(100, 'a'));
+        when(classFile.constructorArgs("Value2")).thenReturn(List.of(200, EnumClassFile.NON_CONSTANT));
+
+        EnumDef typeDef = (EnumDef)parser.parse(enumType.element());
+        assertThat(typeDef.components()).satisfiesExactly(
+            c1 -> assertThat(c1.value()).isEqualTo('a')
+        );
+        verify(ctxMocks.getContext()).error(msgCaptor.capture(), any(Object[].class));
+        assertThat(msgCaptor.getValue()).contains("Only literals are supported");
+    }
+
+    @Test
+    void warnIfEnumConstantIsNotInterpretedFromClassFile() {
+        enumType.withEnclosedElements(
+            ctxMocks.executable("EnumA").withElementKind(ElementKind.CONSTRUCTOR)
+                .withParameters(ctxMocks.primitiveVariable("arg0", TypeKind.INT).element())
+                .element(),
+            ctxMocks.declaredTypeVariable("Value1", enumType.type()).withElementKind(ElementKind.ENUM_CONSTANT).element(),
+            ctxMocks.declaredTypeVariable("Value2", enumType.type()).withElementKind(ElementKind.ENUM_CONSTANT).element(),
+            ctxMocks.primitiveVariable("field1", TypeKind.INT).withAnnotation(SharedType.EnumValue.class).element()
+        );
+        when(ctxMocks.getTrees().getTree(enumType.element())).thenReturn(null);
+        EnumClassFile classFile = mock(EnumClassFile.class);
+        when(classFileReader.read(enumType.element())).thenReturn(classFile);
+        when(classFile.fieldParameterIndex("field1")).thenReturn(0);
+        when(classFile.constructorArgs("Value1")).thenReturn(List.of(100));
+        when(classFile.constructorArgs("Value2")).thenReturn(null);
+        when(classFile.unsupportedOpcode()).thenReturn(0x99);
+
+        EnumDef typeDef = (EnumDef)parser.parse(enumType.element());
+        assertThat(typeDef.components()).satisfiesExactly(
+            c1 -> assertThat(c1.value()).isEqualTo(100)
+        );
+        verify(ctxMocks.getContext()).warning(msgCaptor.capture(), any(Object[].class));
+        assertThat(msgCaptor.getValue()).contains("cannot be read from the class file");
+        verify(ctxMocks.getContext(), never()).error(any(), any(Object[].class));
+    }
 }
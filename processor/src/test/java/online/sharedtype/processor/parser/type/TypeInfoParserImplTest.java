@@ -7,14 +7,17 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import online.sharedtype.processor.domain.ArrayTypeInfo;
 import online.sharedtype.processor.domain.ConcreteTypeInfo;
+import online.sharedtype.processor.domain.Constants;
+import online.sharedtype.processor.domain.MapTypeInfo;
 import online.sharedtype.processor.domain.TypeVariableInfo;
 import online.sharedtype.support.annotation.Issue;
 
+import javax.lang.model.element.Name;
 import javax.lang.model.type.TypeKind;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -235,8 +238,65 @@ class TypeInfoParserImplTest {
         var typeArg = (ConcreteTypeInfo)typeInfo.typeArgs().get(0);
         assertThat(typeArg.qualifiedName()).isEqualTo("java.lang.Integer");
 
-        verify(ctxMocks.getTypeStore(), never()).getTypeInfo("com.github.cuzfrog.Container");
-        verify(ctxMocks.getTypeStore(), never()).saveTypeInfo(eq("com.github.cuzfrog.Container"), any());
-        verify(ctxMocks.getTypeStore()).getTypeInfo("java.lang.Integer");
+        verify(ctxMocks.getTypeStore(), never()).getTypeInfo(nameOf("com.github.cuzfrog.Container"));
+        verify(ctxMocks.getTypeStore(), never()).saveTypeInfo(nameOf("com.github.cuzfrog.Container"), any());
+        verify(ctxMocks.getTypeStore()).getTypeInfo(nameOf("java.lang.Integer"));
+    }
+
+    @Test
+    void internGenericTypeInfoByTypeArguments() {
+        var type1 = ctxMocks.typeElement("com.github.cuzfrog.Container")
+            .withTypeArguments(ctxMocks.typeElement("java.lang.Integer").type()).type();
+        var type2 = ctxMocks.typeElement("com.github.cuzfrog.Container")
+            .withTypeArguments(ctxMocks.typeElement("java.lang.Integer").type()).type();
+        var type3 = ctxMocks.typeElement("com.github.cuzfrog.Container")
+            .withTypeArguments(ctxMocks.typeElement("java.lang.String").type()).type();
+
+        var typeInfo1 = parser.parse(type1);
+        var typeInfo2 = parser.parse(type2);
+        var typeInfo3 = parser.parse(type3);
+        assertThat(typeInfo2).isSameAs(typeInfo1);
+        assertThat(typeInfo3).isNotSameAs(typeInfo1);
+    }
+
+    @Test
+    void internArrayTypeInfo() {
+        var type1 = ctxMocks.declaredTypeVariable("field1", ctxMocks.typeElement("java.util.List").type())
+            .withTypeKind(TypeKind.DECLARED)
+            .withTypeArguments(ctxMocks.typeElement("java.lang.String").type())
+            .type();
+        var type2 = ctxMocks.declaredTypeVariable("field2", ctxMocks.typeElement("java.util.Set").type())
+            .withTypeKind(TypeKind.DECLARED)
+            .withTypeArguments(ctxMocks.typeElement("java.lang.String").type())
+            .type();
+        when(ctxMocks.getContext().isArraylike(type1)).thenReturn(true);
+        when(ctxMocks.getContext().isArraylike(type2)).thenReturn(true);
+
+        assertThat(parser.parse(type2)).isSameAs(parser.parse(type1));
+    }
+
+    @Test
+    void parseMaplikeObject() {
+        var mapElement = ctxMocks.typeElement("java.util.Map");
+        var type = mapElement
+            .withTypeArguments(
+                ctxMocks.typeElement("java.lang.String").type(),
+                ctxMocks.typeElement("java.lang.Integer").type()
+            )
+            .type();
+        when(ctxMocks.getContext().isMaplike(type)).thenReturn(true);
+        when(ctxMocks.getContext().isPredefinedMaplike(mapElement.element())).thenReturn(true);
+
+        var mapTypeInfo = (MapTypeInfo) parser.parse(type);
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(mapTypeInfo.keyType()).isSameAs(Constants.STRING_TYPE_INFO);
+            softly.assertThat(mapTypeInfo.valueType()).isSameAs(Constants.BOXED_INT_TYPE_INFO);
+            softly.assertThat(mapTypeInfo.resolved()).isTrue();
+        });
+        assertThat(parser.parse(type)).isSameAs(mapTypeInfo);
+    }
+
+    private static Name nameOf(String qualifiedName) {
+        return argThat(name -> name != null && name.contentEquals(qualifiedName));
     }
 }
@@ -17,9 +17,13 @@ import javax.lang.model.element.TypeElement;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static online.sharedtype.processor.domain.Constants.STRING_TYPE_INFO;
 
@@ -83,15 +87,7 @@ final class LoopTypeResolverTest {
             assertThat(a).isSameAs(aDef);
         }
         {
-            ClassDef b = (ClassDef) defs.get(1);
-            assertThat(b).isSameAs(bDef);
-        }
-        {
-            ClassDef tuple = (ClassDef) defs.get(2);
-            assertThat(tuple).isSameAs(tupleDef);
-        }
-        {
-            ClassDef superclassA = (ClassDef) defs.get(3);
+            ClassDef superclassA = (ClassDef) defs.get(1);
             assertThat(superclassA.qualifiedName()).isEqualTo("com.github.cuzfrog.SuperClassA");
             assertThat(superclassA.simpleName()).isEqualTo("SuperClassA");
             assertThat(superclassA.components()).hasSize(1);
@@ -101,6 +97,14 @@ final class LoopTypeResolverTest {
             ConcreteTypeInfo fieldType = (ConcreteTypeInfo) field.type();
             assertThat(fieldType.qualifiedName()).isEqualTo("com.github.cuzfrog.A");
         }
+        {
+            ClassDef tuple = (ClassDef) defs.get(2);
+            assertThat(tuple).isSameAs(tupleDef);
+        }
+        {
+            ClassDef b = (ClassDef) defs.get(3);
+            assertThat(b).isSameAs(bDef);
+        }
         {
             ClassDef abc = (ClassDef) defs.get(4);
             assertThat(abc).isSameAs(typeDef);
@@ -148,7 +152,120 @@ final class LoopTypeResolverTest {
         assertThat(defs.get(0)).isSameAs(classDef);
     }
 
+    @Test
+    void passOnAnnotatedDependencyBeforeAnnotatedDependent() {
+        var bTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.B").build();
+        var cTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.C").resolved(false).build();
+        var aDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.A")
+            .components(List.of(FieldComponentInfo.builder().name("b").type(bTypeInfo).build()))
+            .build();
+        var bDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.B")
+            .components(List.of(FieldComponentInfo.builder().name("c").type(cTypeInfo).build()))
+            .build();
+        var cDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.C").build();
+        ctxMocks.getTypeStore().saveTypeDef("com.github.cuzfrog.A", aDef);
+        ctxMocks.getTypeStore().saveTypeDef("com.github.cuzfrog.B", bDef);
+        when(typeDefParser.parse(mockElementByName("com.github.cuzfrog.C"))).thenReturn(cDef);
+
+        List<TypeDef> defs = resolver.resolve(List.of(aDef, bDef));
+        assertThat(defs).containsExactly(cDef, bDef, aDef);
+    }
+
+    @Test
+    void stopResolvingBeyondMaxDepth() {
+        var props = spy(ctxMocks.getProps());
+        when(props.getResolutionMaxDepth()).thenReturn(1);
+        var ctxMocks = new ContextMocks(props);
+        var resolver = new LoopTypeResolver(ctxMocks.getContext(), typeDefParser);
+
+        var bTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.B").resolved(false).build();
+        var aTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.A").resolved(false).build();
+        var abcDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.Abc")
+            .components(List.of(FieldComponentInfo.builder().name("a").type(aTypeInfo).build()))
+            .build();
+        var aDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.A")
+            .components(List.of(FieldComponentInfo.builder().name("b").type(bTypeInfo).build()))
+            .build();
+        when(typeDefParser.parse(mockElementByName(ctxMocks, "com.github.cuzfrog.A"))).thenReturn(aDef);
+        mockElementByName(ctxMocks, "com.github.cuzfrog.B");
+
+        List<TypeDef> defs = resolver.resolve(List.of(abcDef));
+        assertThat(defs).containsExactly(aDef, abcDef);
+        assertThat(aTypeInfo.opaque()).isFalse();
+        assertThat(bTypeInfo.opaque()).isTrue();
+        assertThat(bTypeInfo.resolved()).isTrue();
+    }
+
+    @Test
+    void decideMaxDepthByShallowestReachFromAnyAnnotatedType() {
+        var props = spy(ctxMocks.getProps());
+        when(props.getResolutionMaxDepth()).thenReturn(2);
+        var ctxMocks = new ContextMocks(props);
+        var resolver = new LoopTypeResolver(ctxMocks.getContext(), typeDefParser);
+
+        // root1 -> A -> B -> T, B -> C, root2 -> T
+        var aTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.A").resolved(false).build();
+        var bTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.B").resolved(false).build();
+        var tTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.T").resolved(false).build();
+        var cTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.C").resolved(false).build();
+        var root1Def = ClassDef.builder().qualifiedName("com.github.cuzfrog.Root1")
+            .components(List.of(FieldComponentInfo.builder().name("a").type(aTypeInfo).build()))
+            .build();
+        var root2Def = ClassDef.builder().qualifiedName("com.github.cuzfrog.Root2")
+            .components(List.of(FieldComponentInfo.builder().name("t").type(tTypeInfo).build()))
+            .build();
+        var aDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.A")
+            .components(List.of(FieldComponentInfo.builder().name("b").type(bTypeInfo).build()))
+            .build();
+        var bDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.B")
+            .components(List.of(
+                FieldComponentInfo.builder().name("t").type(tTypeInfo).build(),
+                FieldComponentInfo.builder().name("c").type(cTypeInfo).build()
+            ))
+            .build();
+        var tDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.T").build();
+        when(typeDefParser.parse(mockElementByName(ctxMocks, "com.github.cuzfrog.A"))).thenReturn(aDef);
+        when(typeDefParser.parse(mockElementByName(ctxMocks, "com.github.cuzfrog.B"))).thenReturn(bDef);
+        when(typeDefParser.parse(mockElementByName(ctxMocks, "com.github.cuzfrog.T"))).thenReturn(tDef);
+        TypeElement cElement = mockElementByName(ctxMocks, "com.github.cuzfrog.C");
+
+        List<TypeDef> defs = resolver.resolve(List.of(root1Def, root2Def));
+        assertThat(defs).containsExactly(tDef, bDef, aDef, root1Def, root2Def);
+        assertThat(tTypeInfo.opaque()).isFalse();
+        assertThat(cTypeInfo.opaque()).isTrue();
+        verify(typeDefParser, never()).parse(cElement);
+    }
+
+    @Test
+    void stopResolvingOutsidePackages() {
+        var props = spy(ctxMocks.getProps());
+        when(props.getResolutionPackages()).thenReturn(Set.of("com.github.cuzfrog"));
+        var ctxMocks = new ContextMocks(props);
+        var resolver = new LoopTypeResolver(ctxMocks.getContext(), typeDefParser);
+
+        var aTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.A").resolved(false).build();
+        var libTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrogger.Lib").resolved(false).build();
+        var abcDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.Abc")
+            .components(List.of(
+                FieldComponentInfo.builder().name("a").type(aTypeInfo).build(),
+                FieldComponentInfo.builder().name("lib").type(libTypeInfo).build()
+            ))
+            .build();
+        var aDef = ClassDef.builder().qualifiedName("com.github.cuzfrog.A").build();
+        when(typeDefParser.parse(mockElementByName(ctxMocks, "com.github.cuzfrog.A"))).thenReturn(aDef);
+        mockElementByName(ctxMocks, "com.github.cuzfrogger.Lib");
+
+        List<TypeDef> defs = resolver.resolve(List.of(abcDef));
+        assertThat(defs).containsExactly(aDef, abcDef);
+        assertThat(aTypeInfo.opaque()).isFalse();
+        assertThat(libTypeInfo.opaque()).isTrue();
+    }
+
     private TypeElement mockElementByName(String qualifiedName) {
+        return mockElementByName(ctxMocks, qualifiedName);
+    }
+
+    private static TypeElement mockElementByName(ContextMocks ctxMocks, String qualifiedName) {
         TypeElement typeElement = ctxMocks.typeElement(qualifiedName).element();
         when(ctxMocks.getElements().getTypeElement(qualifiedName)).thenReturn(typeElement);
         return typeElement;
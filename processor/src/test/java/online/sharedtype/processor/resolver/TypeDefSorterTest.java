@@ -0,0 +1,111 @@
+package online.sharedtype.processor.resolver;
+
+import online.sharedtype.processor.context.ContextMocks;
+import online.sharedtype.processor.domain.ArrayTypeInfo;
+import online.sharedtype.processor.domain.ClassDef;
+import online.sharedtype.processor.domain.ConcreteTypeInfo;
+import online.sharedtype.processor.domain.FieldComponentInfo;
+import online.sharedtype.processor.domain.TypeDef;
+import online.sharedtype.processor.domain.TypeInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static online.sharedtype.processor.domain.Constants.STRING_TYPE_INFO;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+final class TypeDefSorterTest {
+    private final ContextMocks ctxMocks = new ContextMocks();
+    private final TypeDefSorter sorter = new TypeDefSorter(ctxMocks.getContext());
+
+    @Test
+    void sortDependenciesFirst() {
+        ClassDef a = classDef("A", typeInfo("B"), new ArrayTypeInfo(typeInfo("C")));
+        ClassDef b = classDef("B", typeInfo("C"));
+        ClassDef c = classDef("C", STRING_TYPE_INFO);
+
+        assertThat(addAndVisit(List.of(a, b, c), a)).containsExactly(c, b, a);
+        assertThat(addAndVisit(List.of(c, b, a), a)).containsExactly(c, b, a);
+        verify(ctxMocks.getContext(), times(0)).info(any(), any());
+    }
+
+    @Test
+    void keepCyclicTypesTogetherInOriginalOrder() {
+        ClassDef a = classDef("A", typeInfo("B"));
+        ClassDef b = classDef("B", typeInfo("A"), typeInfo("D"));
+        ClassDef c = classDef("C", typeInfo("A"));
+        ClassDef d = classDef("D", typeInfo("D"));
+
+        assertThat(addAndVisit(List.of(c, a, b, d), c)).containsExactly(d, a, b, c);
+        verify(ctxMocks.getContext()).info(eq("Types with cyclic dependencies: %s"), eq("com.github.cuzfrog.A, com.github.cuzfrog.B"));
+        verify(ctxMocks.getContext()).info(eq("Types with cyclic dependencies: %s"), eq("com.github.cuzfrog.D"));
+    }
+
+    @Test
+    void passOnTypesReachableFromVisitedType() {
+        ClassDef a = classDef("A", typeInfo("C"));
+        ClassDef b = classDef("B", typeInfo("C"), typeInfo("D"));
+        ClassDef c = classDef("C");
+        ClassDef d = classDef("D");
+        List<TypeDef> passedOn = new ArrayList<>();
+        TypeDefSorter.Sorting sorting = sorter.start(4, passedOn::add);
+
+        sorting.add(a);
+        sorting.add(c);
+        sorting.visit(a);
+        assertThat(passedOn).containsExactly(c, a);
+
+        sorting.add(b);
+        sorting.add(d);
+        sorting.visit(b);
+        assertThat(passedOn).containsExactly(c, a, d, b);
+    }
+
+    @Test
+    void ignoreOpaqueTypes() {
+        ConcreteTypeInfo opaqueB = typeInfo("B");
+        opaqueB.markOpaque();
+        ClassDef a = classDef("A", opaqueB);
+        ClassDef b = classDef("B");
+
+        assertThat(addAndVisit(List.of(a, b), a, b)).containsExactly(a, b);
+    }
+
+    @Test
+    void visitPassedOnTypeOnce() {
+        ClassDef a = classDef("A", typeInfo("B"));
+        ClassDef b = classDef("B");
+
+        assertThat(addAndVisit(List.of(a, b), a, b, a)).containsExactly(b, a);
+    }
+
+    private List<TypeDef> addAndVisit(List<TypeDef> typeDefs, TypeDef... roots) {
+        List<TypeDef> passedOn = new ArrayList<>();
+        TypeDefSorter.Sorting sorting = sorter.start(typeDefs.size(), passedOn::add);
+        for (TypeDef typeDef : typeDefs) {
+            sorting.add(typeDef);
+        }
+        for (TypeDef root : roots) {
+            sorting.visit(root);
+        }
+        return passedOn;
+    }
+
+    private static ClassDef classDef(String simpleName, TypeInfo... fieldTypes) {
+        ClassDef.ClassDefBuilder builder = ClassDef.builder().qualifiedName("com.github.cuzfrog." + simpleName).simpleName(simpleName);
+        FieldComponentInfo[] fields = new FieldComponentInfo[fieldTypes.length];
+        for (int i = 0; i < fieldTypes.length; i++) {
+            fields[i] = FieldComponentInfo.builder().name("field" + i).type(fieldTypes[i]).build();
+        }
+        return builder.components(List.of(fields)).build();
+    }
+
+    private static ConcreteTypeInfo typeInfo(String simpleName) {
+        return ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog." + simpleName).simpleName(simpleName).build();
+    }
+}
@@ -0,0 +1,112 @@
+package online.sharedtype.processor.writer;
+
+import online.sharedtype.processor.context.ContextMocks;
+import online.sharedtype.processor.domain.ArrayTypeInfo;
+import online.sharedtype.processor.domain.ClassDef;
+import online.sharedtype.processor.domain.ConcreteTypeInfo;
+import online.sharedtype.processor.domain.Constants;
+import online.sharedtype.processor.domain.EnumDef;
+import online.sharedtype.processor.domain.EnumValueInfo;
+import online.sharedtype.processor.domain.FieldComponentInfo;
+import online.sharedtype.processor.domain.MapTypeInfo;
+import online.sharedtype.processor.domain.TypeDefBinaryReader;
+import online.sharedtype.processor.domain.TypeVariableInfo;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.lang.model.element.Modifier;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+final class BinaryTypeFileWriterTest {
+    private final ContextMocks ctxMocks = new ContextMocks();
+    private final BinaryTypeFileWriter writer = new BinaryTypeFileWriter(ctxMocks.getContext());
+
+    @Test
+    void writeAndReadBack() throws Exception {
+        ConcreteTypeInfo opaqueTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.Opaque").simpleName("Opaque").build();
+        opaqueTypeInfo.markOpaque();
+        ClassDef classDef = ClassDef.builder()
+            .qualifiedName("com.github.cuzfrog.ClassA")
+            .simpleName("ClassA")
+            .typeVariables(List.of(TypeVariableInfo.builder().name("T").build()))
+            .supertypes(List.of(ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.SuperClassA").simpleName("SuperClassA")
+                .typeArgs(List.of(TypeVariableInfo.builder().name("T").build())).build()))
+            .components(List.of(
+                FieldComponentInfo.builder().name("field1").type(Constants.INT_TYPE_INFO).modifiers(EnumSet.of(Modifier.PRIVATE, Modifier.FINAL)).build(),
+                FieldComponentInfo.builder().name("field2").type(new ArrayTypeInfo(Constants.STRING_TYPE_INFO)).optional(true).build(),
+                FieldComponentInfo.builder().name("field3").type(new MapTypeInfo(Constants.STRING_TYPE_INFO, opaqueTypeInfo)).build()
+            ))
+            .build();
+        EnumDef enumDef = EnumDef.builder()
+            .qualifiedName("com.github.cuzfrog.EnumA")
+            .simpleName("EnumA")
+            .enumValueInfos(List.of(
+                new EnumValueInfo(Constants.INT_TYPE_INFO, -12),
+                new EnumValueInfo(Constants.LONG_TYPE_INFO, Long.MAX_VALUE),
+                new EnumValueInfo(Constants.STRING_TYPE_INFO, "Value 中"),
+                new EnumValueInfo(Constants.CHAR_TYPE_INFO, 'c'),
+                new EnumValueInfo(Constants.DOUBLE_TYPE_INFO, 1.5d),
+                new EnumValueInfo(Constants.FLOAT_TYPE_INFO, -2.5f),
+                new EnumValueInfo(Constants.BOOLEAN_TYPE_INFO, true)
+            ))
+            .build();
+
+        writer.write(List.of(classDef, enumDef));
+
+        ArgumentCaptor<byte[]> contentCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(ctxMocks.getContext()).writeAggregatedClassOutput(eq("sharedtype-types.bin"), contentCaptor.capture());
+        TypeDefBinaryReader reader = TypeDefBinaryReader.of(ByteBuffer.wrap(contentCaptor.getValue()));
+
+        assertThat(reader.size()).isEqualTo(2);
+        assertThat(reader.qualifiedNames()).containsExactly("com.github.cuzfrog.ClassA", "com.github.cuzfrog.EnumA");
+        assertThat(reader.read("com.github.cuzfrog.Unknown")).isNull();
+
+        ClassDef readClassDef = (ClassDef) reader.read(0);
+        assertThat(readClassDef.toString()).isEqualTo(classDef.toString());
+        assertThat(readClassDef.typeVariables()).isEqualTo(classDef.typeVariables());
+        assertThat(readClassDef.supertypes()).isEqualTo(classDef.supertypes());
+        assertThat(readClassDef.components().get(0).modifiers()).containsExactlyInAnyOrder(Modifier.PRIVATE, Modifier.FINAL);
+        assertThat(readClassDef.components().get(1).modifiers()).isNull();
+        assertThat(readClassDef.components().get(1).optional()).isTrue();
+        MapTypeInfo readMapTypeInfo = (MapTypeInfo) readClassDef.components().get(2).type();
+        assertThat(readMapTypeInfo).isEqualTo(classDef.components().get(2).type());
+        assertThat(((ConcreteTypeInfo) readMapTypeInfo.valueType()).opaque()).isTrue();
+        assertThat(readClassDef.resolved()).isTrue();
+
+        EnumDef readEnumDef = (EnumDef) reader.read("com.github.cuzfrog.EnumA");
+        assertThat(readEnumDef.simpleName()).isEqualTo("EnumA");
+        assertThat(readEnumDef.components()).isEqualTo(enumDef.components());
+    }
+
+    @Test
+    void keepUnresolvedState() throws Exception {
+        ClassDef classDef = ClassDef.builder()
+            .qualifiedName("com.github.cuzfrog.ClassA")
+            .components(List.of(
+                FieldComponentInfo.builder().name("field1").type(ConcreteTypeInfo.builder().qualifiedName("com.github.cuzfrog.B").resolved(false).build()).build()
+            ))
+            .build();
+
+        writer.write(List.of(classDef));
+
+        ArgumentCaptor<byte[]> contentCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(ctxMocks.getContext()).writeAggregatedClassOutput(eq("sharedtype-types.bin"), contentCaptor.capture());
+        ClassDef readClassDef = (ClassDef) TypeDefBinaryReader.of(ByteBuffer.wrap(contentCaptor.getValue())).read(0);
+        assertThat(readClassDef.simpleName()).isNull();
+        assertThat(readClassDef.resolved()).isFalse();
+    }
+
+    @Test
+    void rejectNonBinaryMetadata() {
+        assertThatThrownBy(() -> TypeDefBinaryReader.of(ByteBuffer.wrap(new byte[32])))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Not a SharedType binary metadata file");
+    }
+}
@@ -0,0 +1,55 @@
+package online.sharedtype.processor.writer;
+
+import online.sharedtype.processor.writer.TypescriptTypeFileWriter.EnumUnionExpr;
+import online.sharedtype.processor.writer.TypescriptTypeFileWriter.InterfaceExpr;
+import online.sharedtype.processor.writer.TypescriptTypeFileWriter.PropertyExpr;
+import online.sharedtype.processor.writer.render.Template;
+import online.sharedtype.processor.writer.render.TemplateRenderer;
+import online.sharedtype.support.utils.Tuple;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class TypescriptStreamingRendererTest {
+    private final TypescriptStreamingRenderer renderer = new TypescriptStreamingRenderer();
+    private final TemplateRenderer mustacheRenderer = TemplateRenderer.create();
+
+    @Test
+    void renderSameAsMustacheTemplates() {
+        List<Tuple<Template, Object>> data = List.of(
+            Tuple.of(Template.TEMPLATE_INTERFACE, new InterfaceExpr(
+                "ClassA",
+                List.of("T", "U"),
+                List.of("SuperClassA<U>", "InterfaceB"),
+                List.of(
+                    new PropertyExpr("field1", "number", ';', true, false, false),
+                    new PropertyExpr("field2", "Container<T>[][]", ';', false, false, false)
+                )
+            )),
+            Tuple.of(Template.TEMPLATE_INTERFACE, new InterfaceExpr(
+                "ClassB",
+                Collections.emptyList(),
+                Collections.emptyList(),
+                List.of(new PropertyExpr("value", "string", ',', false, false, false))
+            )),
+            Tuple.of(Template.TEMPLATE_INTERFACE, new InterfaceExpr(
+                "Empty", Collections.emptyList(), Collections.emptyList(), Collections.emptyList()
+            )),
+            Tuple.of(Template.TEMPLATE_ENUM_UNION, new EnumUnionExpr("EnumA", List.of("\"A\"", "\"B\"", "3")))
+        );
+        mustacheRenderer.loadTemplates(Template.TEMPLATE_INTERFACE, Template.TEMPLATE_ENUM_UNION);
+        renderer.loadTemplates(Template.TEMPLATE_INTERFACE, Template.TEMPLATE_ENUM_UNION);
+
+        StringWriter expected = new StringWriter();
+        mustacheRenderer.render(expected, data);
+        StringWriter actual = new StringWriter();
+        renderer.render(actual, data);
+
+        assertThat(actual.toString()).isEqualTo(expected.toString());
+        assertThat(actual.toString()).startsWith("export interface ClassA<T, U> extends SuperClassA<U>, InterfaceB {\n    field1?: number;\n");
+    }
+}
@@ -12,28 +12,42 @@ import org.mockito.quality.Strictness;
 import online.sharedtype.processor.domain.ArrayTypeInfo;
 import online.sharedtype.processor.domain.ClassDef;
 import online.sharedtype.processor.domain.ConcreteTypeInfo;
+import online.sharedtype.processor.domain.Constants;
 import online.sharedtype.processor.domain.EnumDef;
 import online.sharedtype.processor.domain.EnumValueInfo;
 import online.sharedtype.processor.domain.FieldComponentInfo;
+import online.sharedtype.processor.domain.MapTypeInfo;
+import online.sharedtype.processor.domain.TypeDef;
 import online.sharedtype.processor.domain.TypeVariableInfo;
 import online.sharedtype.processor.context.ContextMocks;
+import online.sharedtype.processor.context.Props;
 import online.sharedtype.support.utils.Tuple;
 import online.sharedtype.processor.writer.render.Template;
 import online.sharedtype.processor.writer.render.TemplateRenderer;
 
-import javax.tools.FileObject;
+import javax.lang.model.element.Name;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static online.sharedtype.processor.domain.Constants.INT_TYPE_INFO;
@@ -45,7 +59,6 @@ final class TypescriptTypeFileWriterTest {
     private @Mock TemplateRenderer renderer;
     private TypescriptTypeFileWriter writer;
 
-    private @Mock FileObject fileObject;
     private @Captor ArgumentCaptor<List<Tuple<Template, Object>>> renderDataCaptor;
 
     private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(256);
@@ -53,8 +66,7 @@ final class TypescriptTypeFileWriterTest {
     @BeforeEach
     void setUp() throws IOException {
         writer = new TypescriptTypeFileWriter(ctxMocks.getContext(), renderer);
-        when(ctxMocks.getContext().createSourceOutput("types.d.ts")).thenReturn(fileObject);
-        when(fileObject.openOutputStream()).thenReturn(outputStream);
+        mockOutputFile(ctxMocks, "types.d.ts", outputStream);
     }
 
     @Test
@@ -94,9 +106,33 @@ final class TypescriptTypeFileWriterTest {
             .hasMessageContaining("Failed to get constant expression for enum value: 123 of type int in enum");
     }
 
+    @Test
+    void renderEachEnumLiteralOnce() throws IOException {
+        EnumDef enumDef = EnumDef.builder()
+            .simpleName("EnumA")
+            .qualifiedName("com.github.cuzfrog.EnumA")
+            .enumValueInfos(Arrays.asList(
+                new EnumValueInfo(STRING_TYPE_INFO, "USD"),
+                new EnumValueInfo(STRING_TYPE_INFO, "a\"b"),
+                new EnumValueInfo(INT_TYPE_INFO, 123),
+                new EnumValueInfo(STRING_TYPE_INFO, "USD"),
+                new EnumValueInfo(INT_TYPE_INFO, 123)
+            ))
+            .build();
+        when(ctxMocks.getElements().getConstantExpression("a\"b")).thenReturn("\"a\\\"b\"");
+        when(ctxMocks.getElements().getConstantExpression(123)).thenReturn("123");
+
+        writer.write(Collections.singletonList(enumDef));
+
+        verify(renderer).render(any(), renderDataCaptor.capture());
+        TypescriptTypeFileWriter.EnumUnionExpr model = (TypescriptTypeFileWriter.EnumUnionExpr) renderDataCaptor.getValue().get(0).b();
+        assertThat(model.values).containsExactly("\"USD\"", "\"a\\\"b\"", "123", "\"USD\"", "123");
+        verify(ctxMocks.getElements(), never()).getConstantExpression("USD");
+        verify(ctxMocks.getElements()).getConstantExpression(123);
+    }
+
     @Test
     void writeInterface() throws IOException {
-        when(ctxMocks.getContext().createSourceOutput("types.d.ts")).thenReturn(fileObject);
         ClassDef classDef = ClassDef.builder()
             .qualifiedName("com.github.cuzfrog.ClassA")
             .simpleName("ClassA")
@@ -164,6 +200,169 @@ final class TypescriptTypeFileWriterTest {
         assertThat(prop4.optional).isFalse();
     }
 
+    @Test
+    void reuseTypeExprOfSameTypeInfo() throws IOException {
+        ConcreteTypeInfo containerTypeInfo = ConcreteTypeInfo.builder()
+            .qualifiedName("com.github.cuzfrog.Container")
+            .simpleName("Container")
+            .typeArgs(Collections.singletonList(STRING_TYPE_INFO))
+            .build();
+        ClassDef classDef = ClassDef.builder()
+            .qualifiedName("com.github.cuzfrog.ClassA")
+            .simpleName("ClassA")
+            .components(Arrays.asList(
+                FieldComponentInfo.builder().name("field1").type(containerTypeInfo).build(),
+                FieldComponentInfo.builder().name("field2").type(containerTypeInfo).build(),
+                FieldComponentInfo.builder().name("field3").type(new ArrayTypeInfo(containerTypeInfo)).build()
+            ))
+            .build();
+
+        writer.write(Collections.singletonList(classDef));
+        verify(renderer).render(any(), renderDataCaptor.capture());
+        TypescriptTypeFileWriter.InterfaceExpr model = (TypescriptTypeFileWriter.InterfaceExpr) renderDataCaptor.getValue().get(0).b();
+        assertThat(model.properties.get(0).type).isEqualTo("Container<string>");
+        assertThat(model.properties.get(1).type).isSameAs(model.properties.get(0).type);
+        assertThat(model.properties.get(2).type).isEqualTo("Container<string>[]");
+    }
+
+    @Test
+    void writeMapAsRecord() throws IOException {
+        ConcreteTypeInfo enumTypeInfo = ConcreteTypeInfo.builder()
+            .qualifiedName("com.github.cuzfrog.EnumA").simpleName("EnumA").build();
+        ctxMocks.getTypeStore().saveTypeDef("com.github.cuzfrog.EnumA", EnumDef.builder().qualifiedName("com.github.cuzfrog.EnumA").build());
+        ClassDef classDef = ClassDef.builder()
+            .qualifiedName("com.github.cuzfrog.ClassA")
+            .simpleName("ClassA")
+            .components(Arrays.asList(
+                FieldComponentInfo.builder().name("field1").type(new MapTypeInfo(STRING_TYPE_INFO, INT_TYPE_INFO)).build(),
+                FieldComponentInfo.builder().name("field2").type(new MapTypeInfo(Constants.BOXED_LONG_TYPE_INFO, new ArrayTypeInfo(STRING_TYPE_INFO))).build(),
+                FieldComponentInfo.builder().name("field3").type(new MapTypeInfo(enumTypeInfo, STRING_TYPE_INFO)).build(),
+                FieldComponentInfo.builder().name("field4").type(new MapTypeInfo(TypeVariableInfo.builder().name("K").build(), TypeVariableInfo.builder().name("V").build())).build()
+            ))
+            .build();
+
+        writer.write(Collections.singletonList(classDef));
+        verify(renderer).render(any(), renderDataCaptor.capture());
+        TypescriptTypeFileWriter.InterfaceExpr model = (TypescriptTypeFileWriter.InterfaceExpr) renderDataCaptor.getValue().get(0).b();
+        assertThat(model.properties.get(0).type).isEqualTo("Record<string, number>");
+        assertThat(model.properties.get(1).type).isEqualTo("Record<number, string[]>");
+        assertThat(model.properties.get(2).type).isEqualTo("Partial<Record<EnumA, string>>");
+        assertThat(model.properties.get(3).type).isEqualTo("Record<string, V>");
+    }
+
+    @Test
+    void writeEnumKeyedMapAsPartialRecord() throws IOException {
+        ConcreteTypeInfo enumTypeInfo = ConcreteTypeInfo.builder()
+            .qualifiedName("com.github.cuzfrog.EnumA").simpleName("EnumA").build();
+        ctxMocks.getTypeStore().saveTypeDef("com.github.cuzfrog.EnumA", EnumDef.builder().qualifiedName("com.github.cuzfrog.EnumA").build());
+        ClassDef classDef = ClassDef.builder()
+            .qualifiedName("com.github.cuzfrog.ClassA")
+            .simpleName("ClassA")
+            .components(Arrays.asList(
+                FieldComponentInfo.builder().name("field1").type(new MapTypeInfo(enumTypeInfo, INT_TYPE_INFO)).build(),
+                FieldComponentInfo.builder().name("field2").type(new MapTypeInfo(STRING_TYPE_INFO, new MapTypeInfo(enumTypeInfo, STRING_TYPE_INFO))).build()
+            ))
+            .build();
+
+        writer.write(Collections.singletonList(classDef));
+        verify(renderer).render(any(), renderDataCaptor.capture());
+        TypescriptTypeFileWriter.InterfaceExpr model = (TypescriptTypeFileWriter.InterfaceExpr) renderDataCaptor.getValue().get(0).b();
+        assertThat(model.properties.get(0).type).isEqualTo("Partial<Record<EnumA, number>>");
+        assertThat(model.properties.get(1).type).isEqualTo("Record<string, Partial<Record<EnumA, string>>>");
+    }
+
+    @Test
+    void writeOpaqueTypeAsObject() throws IOException {
+        ConcreteTypeInfo opaqueTypeInfo = ConcreteTypeInfo.builder()
+            .qualifiedName("com.github.cuzfrog.Lib").simpleName("Lib").resolved(false).build();
+        opaqueTypeInfo.markOpaque();
+        ClassDef classDef = ClassDef.builder()
+            .qualifiedName("com.github.cuzfrog.ClassA")
+            .simpleName("ClassA")
+            .supertypes(Collections.singletonList(opaqueTypeInfo))
+            .components(Collections.singletonList(
+                FieldComponentInfo.builder().name("field1").type(new ArrayTypeInfo(opaqueTypeInfo)).build()
+            ))
+            .build();
+
+        writer.write(Collections.singletonList(classDef));
+        verify(renderer).render(any(), renderDataCaptor.capture());
+        TypescriptTypeFileWriter.InterfaceExpr model = (TypescriptTypeFileWriter.InterfaceExpr) renderDataCaptor.getValue().get(0).b();
+        assertThat(model.supertypes).isEmpty();
+        assertThat(model.properties.get(0).type).isEqualTo("any[]");
+    }
+
+    @MockitoSettings(strictness = Strictness.LENIENT)
+    @Test
+    void writePerPackageWithImports() throws IOException {
+        Props props = spy(ctxMocks.getProps());
+        Props.Typescript typescriptProps = spy(props.getTypescript());
+        when(props.getTypescript()).thenReturn(typescriptProps);
+        when(typescriptProps.getOutputLayout()).thenReturn(Props.Typescript.OutputLayout.PER_PACKAGE);
+        ContextMocks ctxMocks = new ContextMocks(props);
+        writer = new TypescriptTypeFileWriter(ctxMocks.getContext(), new TypescriptStreamingRenderer());
+        mockPackage(ctxMocks, "com.github.a.EnumA", "com.github.a");
+        mockPackage(ctxMocks, "com.github.a.ClassA", "com.github.a");
+        mockPackage(ctxMocks, "com.github.b.ClassB", "com.github.b");
+        mockPackage(ctxMocks, "com.github.b.ClassC", "com.github.b");
+        ByteArrayOutputStream outputA = mockOutputFile(ctxMocks, "com.github.a.d.ts");
+        ByteArrayOutputStream outputB = mockOutputFile(ctxMocks, "com.github.b.d.ts");
+
+        ConcreteTypeInfo enumATypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.a.EnumA").simpleName("EnumA").build();
+        ConcreteTypeInfo classATypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.a.ClassA").simpleName("ClassA").build();
+        ConcreteTypeInfo classCTypeInfo = ConcreteTypeInfo.builder().qualifiedName("com.github.b.ClassC").simpleName("ClassC").build();
+        EnumDef enumA = EnumDef.builder().qualifiedName("com.github.a.EnumA").simpleName("EnumA")
+            .enumValueInfos(List.of(new EnumValueInfo(STRING_TYPE_INFO, "A1"))).build();
+        ClassDef classA = ClassDef.builder().qualifiedName("com.github.a.ClassA").simpleName("ClassA")
+            .components(List.of(FieldComponentInfo.builder().name("field1").type(INT_TYPE_INFO).build())).build();
+        ClassDef classC = ClassDef.builder().qualifiedName("com.github.b.ClassC").simpleName("ClassC").build();
+        ClassDef classB = ClassDef.builder().qualifiedName("com.github.b.ClassB").simpleName("ClassB")
+            .supertypes(List.of(classATypeInfo))
+            .components(List.of(
+                FieldComponentInfo.builder().name("field1").type(new MapTypeInfo(enumATypeInfo, new ArrayTypeInfo(classCTypeInfo))).build()
+            ))
+            .build();
+        for (TypeDef typeDef : List.of(enumA, classA, classC)) {
+            ctxMocks.getTypeStore().saveTypeDef(typeDef.qualifiedName(), typeDef);
+        }
+        when(ctxMocks.getElements().getConstantExpression("A1")).thenReturn("\"A1\"");
+
+        writer.write(List.of(enumA, classA, classC, classB));
+
+        assertThat(outputA.toString()).isEqualTo(
+            "export type EnumA = \"A1\";\n" +
+            "export interface ClassA {\n    field1: number;\n}\n"
+        );
+        assertThat(outputB.toString()).isEqualTo(
+            "import type { ClassA, EnumA } from \"./com.github.a\";\n" +
+            "\n" +
+            "export interface ClassC {\n}\n" +
+            "export interface ClassB extends ClassA {\n    field1: Partial<Record<EnumA, ClassC[]>>;\n}\n"
+        );
+    }
+
+    private static void mockPackage(ContextMocks ctxMocks, String qualifiedName, String packageName) {
+        TypeElement typeElement = mock(TypeElement.class);
+        PackageElement packageElement = mock(PackageElement.class);
+        Name name = mock(Name.class);
+        when(ctxMocks.getElements().getTypeElement(qualifiedName)).thenReturn(typeElement);
+        when(ctxMocks.getElements().getPackageOf(typeElement)).thenReturn(packageElement);
+        when(packageElement.getQualifiedName()).thenReturn(name);
+        when(name.toString()).thenReturn(packageName);
+    }
+
+    private static ByteArrayOutputStream mockOutputFile(ContextMocks ctxMocks, String fileName) throws IOException {
+        return mockOutputFile(ctxMocks, fileName, new ByteArrayOutputStream());
+    }
+
+    private static ByteArrayOutputStream mockOutputFile(ContextMocks ctxMocks, String fileName, ByteArrayOutputStream outputStream) throws IOException {
+        doAnswer(invoc -> {
+            outputStream.write(invoc.<byte[]>getArgument(1));
+            return null;
+        }).when(ctxMocks.getContext()).writeSourceOutput(eq(fileName), any());
+        return outputStream;
+    }
+
     @MockitoSettings(strictness = Strictness.LENIENT)
     @Test
     void failOnDuplicateSimpleName() throws Exception {
@@ -174,5 +373,88 @@ final class TypescriptTypeFileWriterTest {
 
         verify(ctxMocks.getContext()).error(any(), any(Object[].class));
         verify(renderer, never()).render(any(), any());
+        verify(ctxMocks.getContext(), never()).writeSourceOutput(any(), any());
+    }
+
+    @Test
+    void convertToRenderDataOnCallingThreadInParallel() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        when(ctxMocks.getContext().isParallel()).thenReturn(true);
+        when(ctxMocks.getContext().getForkJoinPool()).thenReturn(pool);
+        Set<Thread> javacCallingThreads = ConcurrentHashMap.newKeySet();
+        when(ctxMocks.getElements().getConstantExpression(any())).then(invoc -> {
+            javacCallingThreads.add(Thread.currentThread());
+            return String.valueOf(invoc.<Object>getArgument(0));
+        });
+
+        List<TypeDef> enumDefs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            enumDefs.add(EnumDef.builder()
+                .qualifiedName("com.github.cuzfrog.Enum" + i).simpleName("Enum" + i)
+                .enumValueInfos(List.of(new EnumValueInfo(INT_TYPE_INFO, i)))
+                .build());
+        }
+        try {
+            writer.write(enumDefs);
+        } finally {
+            pool.shutdown();
+        }
+
+        verify(renderer, times(4)).render(any(), any());
+        verify(ctxMocks.getElements(), times(1000)).getConstantExpression(any());
+        assertThat(javacCallingThreads).containsExactly(Thread.currentThread());
+    }
+
+    @MockitoSettings(strictness = Strictness.LENIENT)
+    @Test
+    void notWriteOutputOnDuplicateAfterChunksRendered() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        when(ctxMocks.getContext().isParallel()).thenReturn(true);
+        when(ctxMocks.getContext().getForkJoinPool()).thenReturn(pool);
+
+        List<TypeDef> classDefs = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            classDefs.add(ClassDef.builder().qualifiedName("com.github.cuzfrog.Class" + i).simpleName("Class" + i).build());
+        }
+        classDefs.add(ClassDef.builder().qualifiedName("com.github.cuzfrog.another.Class0").simpleName("Class0").build());
+        try {
+            writer.write(classDefs);
+        } finally {
+            pool.shutdown();
+        }
+
+        verify(ctxMocks.getContext()).error(any(), any(Object[].class));
+        verify(ctxMocks.getContext(), never()).writeSourceOutput(any(), any());
+        assertThat(outputStream.size()).isZero();
+    }
+
+    @Test
+    void renderInParallelInOriginalOrder() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        when(ctxMocks.getContext().isParallel()).thenReturn(true);
+        when(ctxMocks.getContext().getForkJoinPool()).thenReturn(pool);
+        doAnswer(invoc -> {
+            Writer writer = invoc.getArgument(0);
+            List<Tuple<Template, Object>> data = invoc.getArgument(1);
+            for (Tuple<Template, Object> tuple : data) {
+                writer.write(((TypescriptTypeFileWriter.InterfaceExpr) tuple.b()).name + ";");
+            }
+            return null;
+        }).when(renderer).render(any(), any());
+
+        List<TypeDef> classDefs = new ArrayList<>();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            classDefs.add(ClassDef.builder().qualifiedName("com.github.cuzfrog.Class" + i).simpleName("Class" + i).build());
+            expected.append("Class").append(i).append(";");
+        }
+        try {
+            writer.write(classDefs);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(outputStream.toString()).isEqualTo(expected.toString());
+        verify(renderer, times(4)).render(any(), any());
     }
 }